@@ -0,0 +1,84 @@
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Delay} that adapts to observed outcomes instead of the attempt number (AIMD).
+ * <p>
+ * Each {@link #onFailure() failure} multiplies the current backoff by {@code powersOf}, each {@link #onSuccess(Duration)
+ * success} subtracts a fixed {@code decreaseStep}. Observed latencies are smoothed into an EWMA that acts as a floor, so a
+ * slow server is not retried faster than it answers. The result is always kept within {@code lower} and {@code upper}.
+ */
+public class AdaptiveDelay extends Delay implements Delay.StatefulDelay {
+
+    // weight of a new latency sample in the moving average, 1/8 as in TCP's SRTT
+    private static final int LATENCY_SMOOTHING_SHIFT = 3;
+
+    private final Duration lower;
+    private final Duration upper;
+    private final int powersOf;
+    private final long decreaseStepNanos;
+    private final TimeUnit targetTimeUnit;
+
+    private final AtomicLong backoffNanos;
+    private final AtomicLong smoothedLatencyNanos = new AtomicLong();
+
+    AdaptiveDelay(Duration lower, Duration upper, int powersOf, Duration decreaseStep, TimeUnit targetTimeUnit) {
+        this.lower = lower;
+        this.upper = upper;
+        this.powersOf = powersOf;
+        this.decreaseStepNanos = decreaseStep.toNanos();
+        this.targetTimeUnit = targetTimeUnit;
+        this.backoffNanos = new AtomicLong(lower.toNanos());
+    }
+
+    @Override
+    public Duration createDelay(long attempt) {
+        long nanos = Math.max(backoffNanos.get(), smoothedLatencyNanos.get());
+        long inTargetUnit = targetTimeUnit.convert(nanos, TimeUnit.NANOSECONDS);
+        return applyBounds(Duration.ofNanos(targetTimeUnit.toNanos(inTargetUnit)), lower, upper);
+    }
+
+    /**
+     * Record a failed attempt. Grows the backoff multiplicatively.
+     */
+    public void onFailure() {
+        long upperNanos = upper.toNanos();
+        backoffNanos.updateAndGet(current -> {
+            long base = Math.max(current, Math.max(lower.toNanos(), decreaseStepNanos));
+            return base > upperNanos / powersOf ? upperNanos : base * powersOf;
+        });
+    }
+
+    /**
+     * Record a successful attempt. Shrinks the backoff additively.
+     */
+    public void onSuccess() {
+        long lowerNanos = lower.toNanos();
+        backoffNanos.updateAndGet(current -> Math.max(lowerNanos, current - decreaseStepNanos));
+    }
+
+    /**
+     * Record a successful attempt together with its observed latency.
+     */
+    public void onSuccess(Duration latency) {
+        onLatency(latency);
+        onSuccess();
+    }
+
+    /**
+     * Record an observed request or connect latency.
+     */
+    public void onLatency(Duration latency) {
+        LettuceAssert.notNull(latency, "Latency must not be null");
+        long sample = Math.min(Math.max(0, latency.toNanos()), upper.toNanos());
+        smoothedLatencyNanos.updateAndGet(current -> current == 0 ? sample
+                : current + ((sample - current) >> LATENCY_SMOOTHING_SHIFT));
+    }
+
+    @Override
+    public void reset() {
+        backoffNanos.set(lower.toNanos());
+        smoothedLatencyNanos.set(0);
+    }
+}
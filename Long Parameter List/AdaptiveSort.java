@@ -0,0 +1,395 @@
+/**
+ * The  {@code AdaptiveSort} class provides static methods for sorting an array with the algorithm that suits its size and element type. Arrays of at most  {@value #INSERTION_CUTOFF} elements use <em>insertion sort</em>. Larger string arrays use a string radix sort. Larger object arrays use a top-down <em>mergesort</em>, which is stable and makes ~ <em>n</em> lg <em>n</em> compares, run in parallel by  {@link ParallelMerge} from  {@value #PARALLEL_CUTOFF} elements on. Larger primitive arrays use <em>dual-pivot quicksort</em>, and from  {@value #RADIX_CUTOFF} elements on, an <em>LSD radix sort</em> on the bits of the keys, which makes no compares at all. The primitive overloads never box. <p> {@link Selection} remains available as the reference implementation. Floating-point values are ordered like  {@link Double#compare}: -0.0 before 0.0, NaN last.
+ */
+public class AdaptiveSort {
+  private static final int INSERTION_CUTOFF=32;
+  private static final int RADIX_CUTOFF=1 << 12;
+  private static final int PARALLEL_CUTOFF=1 << 16;
+  private static final int BITS_PER_PASS=8;
+  private static final int R=1 << BITS_PER_PASS;
+  /**
+ * The string sorts that  {@link #sort(String[],StringSort)} can use.  {@code MSD} is {@link MSD} radix sort, one pass of key-indexed counting per character position, fastest on extended ASCII keys such as log keys or URLs; it falls back to  {@link Quick3string} for other characters.  {@code QUICK3STRING} is  {@link Quick3string} 3-way radix quicksort, which needs no count arrays and suits long common prefixes over large alphabets and many duplicate keys.
+ */
+  public enum StringSort {MSD, QUICK3STRING}
+  private AdaptiveSort(){
+  }
+  /**
+ * Rearranges the array in ascending order, using the natural order. The sort is stable.
+ * @param a the array to be sorted
+ */
+  public static void sort(  Comparable[] a){
+    if (a.length >= PARALLEL_CUTOFF) {
+      ParallelMerge.sort(a);
+      return;
+    }
+    if (a.length <= INSERTION_CUTOFF) {
+      insertion(a,0,a.length - 1);
+    }
+ else {
+      Comparable[] aux=a.clone();
+      mergesort(aux,a,0,a.length - 1);
+    }
+    assert isSorted(a);
+  }
+  /**
+ * Rearranges the array in ascending order, using a comparator. The sort is stable.
+ * @param a the array
+ * @param comparator the comparator specifying the order
+ */
+  public static void sort(  Object[] a,  Comparator comparator){
+    if (a.length >= PARALLEL_CUTOFF) {
+      ParallelMerge.sort(a,comparator);
+      return;
+    }
+    if (a.length <= INSERTION_CUTOFF) {
+      insertion(a,comparator,0,a.length - 1);
+    }
+ else {
+      Object[] aux=a.clone();
+      mergesort(aux,a,comparator,0,a.length - 1);
+    }
+    assert isSorted(a,comparator);
+  }
+  /**
+ * Rearranges the array of strings in ascending order. Strings are sorted by their characters with  {@link MSD} radix sort, or  {@link Quick3string} if they are not all extended ASCII, rather than by  {@link String#compareTo}, so common prefixes are not re-read on every compare.
+ * @param a the array to be sorted
+ */
+  public static void sort(  String[] a){
+    sort(a,StringSort.MSD);
+  }
+  /**
+ * Rearranges the array of strings in ascending order with the given string sort. Arrays of at most  {@value #INSERTION_CUTOFF} strings use insertion sort either way.
+ * @param a the array to be sorted
+ * @param algorithm the string sort to use
+ */
+  public static void sort(  String[] a,  StringSort algorithm){
+    if (a.length <= INSERTION_CUTOFF) {
+      insertion(a,0,a.length - 1);
+    }
+ else     if (algorithm == StringSort.QUICK3STRING) {
+      Quick3string.sort(a);
+    }
+ else {
+      MSD.sort(a);
+    }
+    assert isSorted(a);
+  }
+  /**
+ * Rearranges the array in ascending numerical order.
+ * @param a the array to be sorted
+ */
+  public static void sort(  int[] a){
+    if (a.length >= RADIX_CUTOFF) {
+      radix(a);
+    }
+ else {
+      quicksort(a,0,a.length - 1);
+    }
+  }
+  /**
+ * Rearranges the array in ascending numerical order.
+ * @param a the array to be sorted
+ */
+  public static void sort(  long[] a){
+    if (a.length >= RADIX_CUTOFF) {
+      radix(a);
+    }
+ else {
+      quicksort(a,0,a.length - 1);
+    }
+  }
+  /**
+ * Rearranges the array in ascending order as defined by  {@link Double#compare}.
+ * @param a the array to be sorted
+ */
+  public static void sort(  double[] a){
+    int n=a.length;
+    if (n < RADIX_CUTOFF) {
+      quicksort(a,0,n - 1);
+      return;
+    }
+    long[] keys=new long[n];
+    for (int i=0; i < n; i++)     keys[i]=sortableBits(a[i]);
+    radix(keys);
+    for (int i=0; i < n; i++)     a[i]=fromSortableBits(keys[i]);
+  }
+  /**
+ * Mergesort: sorts src[lo..hi] into dst[lo..hi], with src and dst holding the same elements on entry. The roles of the two arrays alternate at each level, so no copy back is needed.
+ */
+  private static void mergesort(  Comparable[] src,  Comparable[] dst,  int lo,  int hi){
+    if (hi - lo < INSERTION_CUTOFF) {
+      insertion(dst,lo,hi);
+      return;
+    }
+    int mid=lo + (hi - lo) / 2;
+    mergesort(dst,src,lo,mid);
+    mergesort(dst,src,mid + 1,hi);
+    if (!less(src[mid + 1],src[mid])) {
+      System.arraycopy(src,lo,dst,lo,hi - lo + 1);
+      return;
+    }
+    int i=lo, j=mid + 1;
+    for (int k=lo; k <= hi; k++) {
+      if (i > mid)       dst[k]=src[j++];
+ else       if (j > hi)       dst[k]=src[i++];
+ else       if (less(src[j],src[i]))       dst[k]=src[j++];
+ else       dst[k]=src[i++];
+    }
+  }
+  private static void mergesort(  Object[] src,  Object[] dst,  Comparator comparator,  int lo,  int hi){
+    if (hi - lo < INSERTION_CUTOFF) {
+      insertion(dst,comparator,lo,hi);
+      return;
+    }
+    int mid=lo + (hi - lo) / 2;
+    mergesort(dst,src,comparator,lo,mid);
+    mergesort(dst,src,comparator,mid + 1,hi);
+    if (!less(comparator,src[mid + 1],src[mid])) {
+      System.arraycopy(src,lo,dst,lo,hi - lo + 1);
+      return;
+    }
+    int i=lo, j=mid + 1;
+    for (int k=lo; k <= hi; k++) {
+      if (i > mid)       dst[k]=src[j++];
+ else       if (j > hi)       dst[k]=src[i++];
+ else       if (less(comparator,src[j],src[i]))       dst[k]=src[j++];
+ else       dst[k]=src[i++];
+    }
+  }
+  private static void insertion(  Comparable[] a,  int lo,  int hi){
+    for (int i=lo + 1; i <= hi; i++) {
+      for (int j=i; j > lo && less(a[j],a[j - 1]); j--) {
+        exch(a,j,j - 1);
+      }
+    }
+  }
+  private static void insertion(  Object[] a,  Comparator comparator,  int lo,  int hi){
+    for (int i=lo + 1; i <= hi; i++) {
+      for (int j=i; j > lo && less(comparator,a[j],a[j - 1]); j--) {
+        exch(a,j,j - 1);
+      }
+    }
+  }
+  /**
+ * Dual-pivot quicksort (Yaroslavskiy): partitions a[lo..hi] into &lt; p, p..q and &gt; q.
+ */
+  private static void quicksort(  int[] a,  int lo,  int hi){
+    if (hi - lo < INSERTION_CUTOFF) {
+      for (int i=lo + 1; i <= hi; i++) {
+        int v=a[i];
+        int j=i - 1;
+        for (; j >= lo && v < a[j]; j--)         a[j + 1]=a[j];
+        a[j + 1]=v;
+      }
+      return;
+    }
+    int third=(hi - lo) / 3;
+    if (a[lo + third] > a[hi - third]) {
+      int swap=a[lo + third];
+      a[lo + third]=a[hi - third];
+      a[hi - third]=swap;
+    }
+    int p=a[lo + third];
+    a[lo + third]=a[lo];
+    a[lo]=p;
+    int q=a[hi - third];
+    a[hi - third]=a[hi];
+    a[hi]=q;
+    int lt=lo + 1, gt=hi - 1, i=lo + 1;
+    while (i <= gt) {
+      int v=a[i];
+      if (v < p) {
+        a[i++]=a[lt];
+        a[lt++]=v;
+      }
+ else       if (v > q) {
+        a[i]=a[gt];
+        a[gt--]=v;
+      }
+ else       i++;
+    }
+    a[lo]=a[--lt];
+    a[lt]=p;
+    a[hi]=a[++gt];
+    a[gt]=q;
+    quicksort(a,lo,lt - 1);
+    if (p < q)     quicksort(a,lt + 1,gt - 1);
+    quicksort(a,gt + 1,hi);
+  }
+  private static void quicksort(  long[] a,  int lo,  int hi){
+    if (hi - lo < INSERTION_CUTOFF) {
+      for (int i=lo + 1; i <= hi; i++) {
+        long v=a[i];
+        int j=i - 1;
+        for (; j >= lo && v < a[j]; j--)         a[j + 1]=a[j];
+        a[j + 1]=v;
+      }
+      return;
+    }
+    int third=(hi - lo) / 3;
+    if (a[lo + third] > a[hi - third]) {
+      long swap=a[lo + third];
+      a[lo + third]=a[hi - third];
+      a[hi - third]=swap;
+    }
+    long p=a[lo + third];
+    a[lo + third]=a[lo];
+    a[lo]=p;
+    long q=a[hi - third];
+    a[hi - third]=a[hi];
+    a[hi]=q;
+    int lt=lo + 1, gt=hi - 1, i=lo + 1;
+    while (i <= gt) {
+      long v=a[i];
+      if (v < p) {
+        a[i++]=a[lt];
+        a[lt++]=v;
+      }
+ else       if (v > q) {
+        a[i]=a[gt];
+        a[gt--]=v;
+      }
+ else       i++;
+    }
+    a[lo]=a[--lt];
+    a[lt]=p;
+    a[hi]=a[++gt];
+    a[gt]=q;
+    quicksort(a,lo,lt - 1);
+    if (p < q)     quicksort(a,lt + 1,gt - 1);
+    quicksort(a,gt + 1,hi);
+  }
+  private static void quicksort(  double[] a,  int lo,  int hi){
+    if (hi - lo < INSERTION_CUTOFF) {
+      for (int i=lo + 1; i <= hi; i++) {
+        double v=a[i];
+        int j=i - 1;
+        for (; j >= lo && less(v,a[j]); j--)         a[j + 1]=a[j];
+        a[j + 1]=v;
+      }
+      return;
+    }
+    int third=(hi - lo) / 3;
+    if (less(a[hi - third],a[lo + third])) {
+      double swap=a[lo + third];
+      a[lo + third]=a[hi - third];
+      a[hi - third]=swap;
+    }
+    double p=a[lo + third];
+    a[lo + third]=a[lo];
+    a[lo]=p;
+    double q=a[hi - third];
+    a[hi - third]=a[hi];
+    a[hi]=q;
+    int lt=lo + 1, gt=hi - 1, i=lo + 1;
+    while (i <= gt) {
+      double v=a[i];
+      if (less(v,p)) {
+        a[i++]=a[lt];
+        a[lt++]=v;
+      }
+ else       if (less(q,v)) {
+        a[i]=a[gt];
+        a[gt--]=v;
+      }
+ else       i++;
+    }
+    a[lo]=a[--lt];
+    a[lt]=p;
+    a[hi]=a[++gt];
+    a[gt]=q;
+    quicksort(a,lo,lt - 1);
+    if (less(p,q))     quicksort(a,lt + 1,gt - 1);
+    quicksort(a,gt + 1,hi);
+  }
+  /**
+ * LSD radix sort on 8-bit digits. The sign bit is flipped in the most significant digit so negative keys come first. Passes in which all keys share the same digit are skipped.
+ */
+  private static void radix(  int[] a){
+    int n=a.length;
+    int[] src=a;
+    int[] dst=new int[n];
+    for (int shift=0; shift < 32; shift+=BITS_PER_PASS) {
+      int flip=shift == 32 - BITS_PER_PASS ? R >>> 1 : 0;
+      int[] count=new int[R + 1];
+      for (int i=0; i < n; i++)       count[((src[i] >>> shift) & (R - 1) ^ flip) + 1]++;
+      if (count[((src[0] >>> shift) & (R - 1) ^ flip) + 1] == n)       continue;
+      for (int r=0; r < R; r++)       count[r + 1]+=count[r];
+      for (int i=0; i < n; i++)       dst[count[(src[i] >>> shift) & (R - 1) ^ flip]++]=src[i];
+      int[] swap=src;
+      src=dst;
+      dst=swap;
+    }
+    if (src != a)     System.arraycopy(src,0,a,0,n);
+  }
+  private static void radix(  long[] a){
+    int n=a.length;
+    long[] src=a;
+    long[] dst=new long[n];
+    for (int shift=0; shift < 64; shift+=BITS_PER_PASS) {
+      int flip=shift == 64 - BITS_PER_PASS ? R >>> 1 : 0;
+      int[] count=new int[R + 1];
+      for (int i=0; i < n; i++)       count[((int)(src[i] >>> shift) & (R - 1) ^ flip) + 1]++;
+      if (count[((int)(src[0] >>> shift) & (R - 1) ^ flip) + 1] == n)       continue;
+      for (int r=0; r < R; r++)       count[r + 1]+=count[r];
+      for (int i=0; i < n; i++)       dst[count[(int)(src[i] >>> shift) & (R - 1) ^ flip]++]=src[i];
+      long[] swap=src;
+      src=dst;
+      dst=swap;
+    }
+    if (src != a)     System.arraycopy(src,0,a,0,n);
+  }
+  /**
+ * Maps a double to a long whose signed order is the order of  {@link Double#compare}.
+ */
+  private static long sortableBits(  double d){
+    long bits=Double.doubleToLongBits(d);
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+  private static double fromSortableBits(  long key){
+    return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+  }
+  /**
+ * Helper sorting functions.
+ */
+  private static boolean less(  Comparable v,  Comparable w){
+    if (SortProbe.ENABLED)     SortProbe.compare();
+    return v.compareTo(w) < 0;
+  }
+  private static boolean less(  Comparator comparator,  Object v,  Object w){
+    if (SortProbe.ENABLED)     SortProbe.compare();
+    return comparator.compare(v,w) < 0;
+  }
+  private static boolean less(  double v,  double w){
+    return Double.compare(v,w) < 0;
+  }
+  private static void exch(  Object[] a,  int i,  int j){
+    if (SortProbe.ENABLED)     SortProbe.exchange();
+    Object swap=a[i];
+    a[i]=a[j];
+    a[j]=swap;
+  }
+  /**
+ * Check if array is sorted - useful for debugging.
+ */
+  private static boolean isSorted(  Comparable[] a){
+    for (int i=1; i < a.length; i++)     if (less(a[i],a[i - 1]))     return false;
+    return true;
+  }
+  private static boolean isSorted(  Object[] a,  Comparator comparator){
+    for (int i=1; i < a.length; i++)     if (less(comparator,a[i],a[i - 1]))     return false;
+    return true;
+  }
+  /**
+ * Reads in a sequence of strings from standard input; sorts them with the string sort named by the optional argument,  {@code MSD} or  {@code QUICK3STRING}; and prints them to standard output in ascending order.
+ * @param args the command-line arguments
+ */
+  public static void main(  String[] args){
+    StringSort algorithm=args.length > 0 ? StringSort.valueOf(args[0]) : StringSort.MSD;
+    String[] a=StdIn.readAllStrings();
+    AdaptiveSort.sort(a,algorithm);
+    for (int i=0; i < a.length; i++) {
+      StdOut.println(a[i]);
+    }
+  }
+}
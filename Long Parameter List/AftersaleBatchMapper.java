@@ -0,0 +1,6 @@
+/**
+ * Multi-row inserts into the aftersale table. <p> One statement inserts a whole list, through the caller's session and transaction, and MySQL returns the generated ids of all rows, which are set on the list elements. Columns that are null in an element get their column default, as with <code>insertSelective</code>.
+ */
+@Mapper public interface AftersaleBatchMapper {
+  @Insert({"<script>","insert into litemall_aftersale (aftersale_sn, order_id, user_id, `type`, reason, amount, pictures, `comment`, `status`, handle_time, add_time, update_time, deleted) values","<foreach collection='list' item='a' separator=','>(","#{a.aftersaleSn},","#{a.orderId},","#{a.userId},","<choose><when test='a.type != null'>#{a.type}</when><otherwise>default</otherwise></choose>,","<choose><when test='a.reason != null'>#{a.reason}</when><otherwise>default</otherwise></choose>,","<choose><when test='a.amount != null'>#{a.amount}</when><otherwise>default</otherwise></choose>,","<choose><when test='a.pictures != null'>#{a.pictures,typeHandler=org.linlinjava.litemall.db.mybatis.JsonStringArrayTypeHandler}</when><otherwise>default</otherwise></choose>,","<choose><when test='a.comment != null'>#{a.comment}</when><otherwise>default</otherwise></choose>,","<choose><when test='a.status != null'>#{a.status}</when><otherwise>default</otherwise></choose>,","#{a.handleTime},","#{a.addTime},","#{a.updateTime},","<choose><when test='a.deleted != null'>#{a.deleted}</when><otherwise>default</otherwise></choose>",")</foreach>","</script>"}) @Options(useGeneratedKeys=true,keyProperty="id",keyColumn="id") int insertAll(  List<LitemallAftersale> aftersales);
+}
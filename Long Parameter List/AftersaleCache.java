@@ -0,0 +1,140 @@
+/**
+ * Bounded LRU cache in front of the aftersale table. <p> Rows are cached by id; orders are cached as (userId, orderId) -> aftersale id, including "no aftersale" so that order detail pages without an aftersale do not query either. Any write to a row invalidates its id, writes that can change the order mapping also invalidate the order key; {@link LitemallAftersaleService} does so once the writing transaction has committed. A load that raced with an invalidation is not stored. <p> Invalidation is local to this instance, so entries also expire <code>litemall.aftersale.cache-ttl-seconds</code> after they were loaded, which bounds how long a write made through another instance can go unseen. <p> The cache keeps its own copy of every row and returns a new copy on each hit, so callers may modify what they get.
+ */
+@Component public class AftersaleCache {
+  private static final Integer NO_AFTERSALE=-1;
+  private final Map<Integer,Entry<LitemallAftersale>> byId;
+  private final Map<String,Entry<Integer>> byOrder;
+  private final long ttlNanos;
+  private final LongAdder hits=new LongAdder();
+  private final LongAdder misses=new LongAdder();
+  private long generation;
+  public AftersaleCache(  @Value("${litemall.aftersale.cache-size:10000}") int maxSize,  @Value("${litemall.aftersale.cache-ttl-seconds:60}") long ttlSeconds){
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("litemall.aftersale.cache-size must be positive");
+    }
+    if (ttlSeconds <= 0) {
+      throw new IllegalArgumentException("litemall.aftersale.cache-ttl-seconds must be positive");
+    }
+    this.byId=lruMap(maxSize);
+    this.byOrder=lruMap(maxSize);
+    this.ttlNanos=TimeUnit.SECONDS.toNanos(ttlSeconds);
+  }
+  private static <K,V>Map<K,V> lruMap(  int maxSize){
+    return new LinkedHashMap<K,V>(16,0.75f,true){
+      @Override protected boolean removeEldestEntry(      Map.Entry<K,V> eldest){
+        return size() > maxSize;
+      }
+    }
+;
+  }
+  private static String orderKey(  Integer userId,  Integer orderId){
+    return userId + ":" + orderId;
+  }
+  private static LitemallAftersale copy(  LitemallAftersale aftersale){
+    LitemallAftersale copy=new LitemallAftersale();
+    BeanUtils.copyProperties(aftersale,copy);
+    return copy;
+  }
+  /**
+ * @return the live value of {@code key}, {@code null} if there is none or it expired
+ */
+  private static <K,V>V live(  Map<K,Entry<V>> map,  K key,  long now){
+    Entry<V> entry=map.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (now - entry.expiresAt >= 0) {
+      map.remove(key);
+      return null;
+    }
+    return entry.value;
+  }
+  private <V>Entry<V> entry(  V value){
+    return new Entry<>(value,System.nanoTime() + ttlNanos);
+  }
+  public LitemallAftersale getById(  Integer id,  Function<Integer,LitemallAftersale> loader){
+    long gen;
+    synchronized (this) {
+      LitemallAftersale cached=live(byId,id,System.nanoTime());
+      if (cached != null) {
+        hits.increment();
+        return copy(cached);
+      }
+      gen=generation;
+    }
+    misses.increment();
+    LitemallAftersale loaded=loader.apply(id);
+    if (loaded != null) {
+      LitemallAftersale snapshot=copy(loaded);
+      synchronized (this) {
+        if (gen == generation) {
+          byId.put(id,entry(snapshot));
+        }
+      }
+    }
+    return loaded;
+  }
+  /**
+ * @return the id of the aftersale of the order,  {@code null} if there is none, or the id returned by {@code loader} on a miss
+ */
+  public Integer getIdByOrder(  Integer userId,  Integer orderId,  Supplier<LitemallAftersale> loader){
+    String key=orderKey(userId,orderId);
+    long gen;
+    synchronized (this) {
+      Integer cached=live(byOrder,key,System.nanoTime());
+      if (cached != null) {
+        hits.increment();
+        return NO_AFTERSALE.equals(cached) ? null : cached;
+      }
+      gen=generation;
+    }
+    misses.increment();
+    LitemallAftersale loaded=loader.get();
+    LitemallAftersale snapshot=loaded == null ? null : copy(loaded);
+    synchronized (this) {
+      if (gen == generation) {
+        byOrder.put(key,entry(loaded == null ? NO_AFTERSALE : loaded.getId()));
+        if (snapshot != null) {
+          byId.put(snapshot.getId(),entry(snapshot));
+        }
+      }
+    }
+    return loaded == null ? null : loaded.getId();
+  }
+  public synchronized void invalidateId(  Integer id){
+    generation++;
+    byId.remove(id);
+  }
+  public synchronized void invalidateOrder(  Integer userId,  Integer orderId){
+    generation++;
+    byOrder.remove(orderKey(userId,orderId));
+  }
+  public synchronized void clear(){
+    generation++;
+    byId.clear();
+    byOrder.clear();
+  }
+  public long getHitCount(){
+    return hits.sum();
+  }
+  public long getMissCount(){
+    return misses.sum();
+  }
+  public double getHitRate(){
+    long h=hits.sum();
+    long total=h + misses.sum();
+    return total == 0 ? 0 : (double)h / total;
+  }
+  public synchronized int size(){
+    return byId.size() + byOrder.size();
+  }
+  private static final class Entry<V> {
+    final V value;
+    final long expiresAt;
+    Entry(    V value,    long expiresAt){
+      this.value=value;
+      this.expiresAt=expiresAt;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * One page of a keyset (seek) query, with the cursor to pass to the next call. The cursor is <code>null</code> on the last page.
+ */
+public class AftersaleSeekPage {
+  private final List<LitemallAftersale> list;
+  private final Cursor next;
+  public AftersaleSeekPage(  List<LitemallAftersale> list,  Cursor next){
+    this.list=list;
+    this.next=next;
+  }
+  public List<LitemallAftersale> getList(){
+    return list;
+  }
+  public Cursor getNext(){
+    return next;
+  }
+  /**
+ * Position after the last row of a page: its <code>addTime</code> and <code>id</code>. When sorting by id only, <code>addTime</code> is ignored.
+ */
+  public static class Cursor {
+    private final LocalDateTime addTime;
+    private final Integer id;
+    public Cursor(    LocalDateTime addTime,    Integer id){
+      this.addTime=addTime;
+      this.id=id;
+    }
+    public static Cursor of(    LitemallAftersale aftersale){
+      return new Cursor(aftersale.getAddTime(),aftersale.getId());
+    }
+    public LocalDateTime getAddTime(){
+      return addTime;
+    }
+    public Integer getId(){
+      return id;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Generates aftersale serial numbers without a database round trip. <p> Format: <code>yyyyMMdd</code> + seconds since the start of that day (5 digits, also unique on DST days) + node id (2 digits) + sequence within the second (3 digits). A number is unique as long as every service instance runs with its own <code>litemall.aftersale.node-id</code> (0-99), since each node issues at most 1000 numbers per second and never reuses a second. The property has no default: an instance started without one fails at startup rather than silently sharing node 0 with the others. When the sequence of a second is exhausted, or the clock moved backwards, the generator waits for the next unused second.
+ */
+@Component public class AftersaleSnGenerator {
+  private static final DateTimeFormatter DATE_FORMAT=DateTimeFormatter.ofPattern("yyyyMMdd");
+  private static final int MAX_NODE_ID=99;
+  private static final int MAX_SEQUENCE=999;
+  private static final long MAX_CLOCK_BACKWARDS_MILLIS=5000;
+  private final ZoneId zone=ZoneId.systemDefault();
+  private final int nodeId;
+  private long lastSecond;
+  private int sequence;
+  public AftersaleSnGenerator(  @Value("${litemall.aftersale.node-id}") int nodeId){
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("litemall.aftersale.node-id must be between 0 and " + MAX_NODE_ID);
+    }
+    this.nodeId=nodeId;
+    // a restarted instance must not reissue numbers of the second the previous one may have used
+    this.lastSecond=currentSecond();
+    this.sequence=MAX_SEQUENCE;
+  }
+  public synchronized String next(){
+    long second=currentSecond();
+    if (second < lastSecond) {
+      second=waitUntil(lastSecond);
+    }
+    if (second == lastSecond) {
+      if (sequence == MAX_SEQUENCE) {
+        second=waitUntil(lastSecond + 1);
+        sequence=0;
+      }
+ else {
+        sequence++;
+      }
+    }
+ else {
+      sequence=0;
+    }
+    lastSecond=second;
+    LocalDate date=Instant.ofEpochSecond(second).atZone(zone).toLocalDate();
+    long secondOfDay=second - date.atStartOfDay(zone).toEpochSecond();
+    StringBuilder sb=new StringBuilder(18);
+    sb.append(DATE_FORMAT.format(date));
+    appendPadded(sb,(int)secondOfDay,5);
+    appendPadded(sb,nodeId,2);
+    appendPadded(sb,sequence,3);
+    return sb.toString();
+  }
+  private long waitUntil(  long second){
+    long now=currentSecond();
+    if ((second - now) * 1000 > MAX_CLOCK_BACKWARDS_MILLIS) {
+      throw new IllegalStateException("Clock moved backwards, refusing to generate aftersale sn");
+    }
+    while (now < second) {
+      try {
+        Thread.sleep(Math.max(1,second * 1000 - System.currentTimeMillis()));
+      }
+ catch (      InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for next aftersale sn second",e);
+      }
+      now=currentSecond();
+    }
+    return now;
+  }
+  private static long currentSecond(){
+    return System.currentTimeMillis() / 1000;
+  }
+  private static void appendPadded(  StringBuilder sb,  int value,  int width){
+    String s=Integer.toString(value);
+    for (int i=s.length(); i < width; i++) {
+      sb.append('0');
+    }
+    sb.append(s);
+  }
+}
@@ -0,0 +1,7 @@
+@Mapper public interface AftersaleStatMapper {
+  @Select("select `status`, count(*) as total from litemall_aftersale where user_id = #{userId} and deleted = 0 group by `status`") List<Map> countByStatus(  @Param("userId") Integer userId);
+  /**
+ * Reads, and locks until the end of the transaction, the owner, status and deleted flag of the given aftersales, deleted or not, so that their counters can be moved from the state they really had.
+ */
+  @Select({"<script>","select id, user_id as userId, `status`, deleted from litemall_aftersale where id in","<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>","for update","</script>"}) List<LitemallAftersale> selectStatusForUpdate(  @Param("ids") List<Integer> ids);
+}
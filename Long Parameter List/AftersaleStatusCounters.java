@@ -0,0 +1,132 @@
+/**
+ * Per-user aftersale counts by status, so the user center reads them without count queries. <p> A user's counters are loaded with one GROUP BY query on first read and then kept up to date by  {@link LitemallAftersaleService}, which reports every insert, status change, owner change, delete and undelete together with the old owner and status it read from the row. The counters apply these changes once the writing transaction has committed, so a rolled back write changes nothing. A rebuild that raced with a committed write is not stored. <p> At most <code>litemall.aftersale.counter-size</code> users are kept, least recently used first out, and a user's counters are rebuilt <code>litemall.aftersale.counter-ttl-seconds</code> after they were loaded, since writes made through another instance do not reach them.
+ */
+@Component public class AftersaleStatusCounters {
+  @Resource private AftersaleStatMapper aftersaleStatMapper;
+  private final Map<Integer,Counts> counters;
+  private final long ttlNanos;
+  public AftersaleStatusCounters(  @Value("${litemall.aftersale.counter-size:10000}") int maxSize,  @Value("${litemall.aftersale.counter-ttl-seconds:600}") long ttlSeconds){
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("litemall.aftersale.counter-size must be positive");
+    }
+    if (ttlSeconds <= 0) {
+      throw new IllegalArgumentException("litemall.aftersale.counter-ttl-seconds must be positive");
+    }
+    this.counters=new LinkedHashMap<Integer,Counts>(16,0.75f,true){
+      @Override protected boolean removeEldestEntry(      Map.Entry<Integer,Counts> eldest){
+        return size() > maxSize;
+      }
+    }
+;
+    this.ttlNanos=TimeUnit.SECONDS.toNanos(ttlSeconds);
+  }
+  public int count(  Integer userId,  Short status){
+    Integer count=countsOf(userId).get(status);
+    return count == null ? 0 : count;
+  }
+  public Map<Short,Integer> countByStatus(  Integer userId){
+    return countsOf(userId);
+  }
+  /**
+ * An aftersale was inserted. A  {@code null} status takes the column default, which the counters do not know, so the user is rebuilt instead.
+ */
+  public void added(  Integer userId,  Short status){
+    if (status == null) {
+      invalidate(userId);
+      return;
+    }
+    afterCommit(() -> apply(userId,null,status));
+  }
+  /**
+ * The status of an aftersale changed from  {@code from}, as read from its row, to  {@code to}.
+ */
+  public void moved(  Integer userId,  Short from,  Short to){
+    if (!Objects.equals(from,to)) {
+      afterCommit(() -> apply(userId,from,to));
+    }
+  }
+  /**
+ * An aftersale in  {@code status} was deleted.
+ */
+  public void removed(  Integer userId,  Short status){
+    afterCommit(() -> apply(userId,status,null));
+  }
+  /**
+ * Drops the counters of a user, e.g. after a write whose old statuses were not read; the next read rebuilds them.
+ */
+  public void invalidate(  Integer userId){
+    afterCommit(() -> {
+      synchronized (this) {
+        counters.remove(userId);
+      }
+    }
+);
+  }
+  private synchronized void apply(  Integer userId,  Short from,  Short to){
+    Counts counts=counters.get(userId);
+    if (counts == null) {
+      return;
+    }
+    if (counts.byStatus == null) {
+      // a rebuild is running and may have missed this write
+      counters.remove(userId);
+      return;
+    }
+    if (from != null) {
+      counts.byStatus.computeIfPresent(from,(status,count) -> count > 1 ? count - 1 : null);
+    }
+    if (to != null) {
+      counts.byStatus.merge(to,1,Integer::sum);
+    }
+  }
+  private Map<Short,Integer> countsOf(  Integer userId){
+    Counts loading;
+    synchronized (this) {
+      Counts counts=counters.get(userId);
+      if (counts != null && counts.byStatus != null && System.nanoTime() - counts.expiresAt < 0) {
+        return new HashMap<>(counts.byStatus);
+      }
+      if (counts == null || counts.byStatus != null) {
+        counts=new Counts(null,0);
+        counters.put(userId,counts);
+      }
+      loading=counts;
+    }
+    Map<Short,Integer> byStatus=new HashMap<>();
+    for (    Map row : aftersaleStatMapper.countByStatus(userId)) {
+      Short status=((Number)row.get("status")).shortValue();
+      byStatus.put(status,((Number)row.get("total")).intValue());
+    }
+    synchronized (this) {
+      // a write committed since the placeholder was put has removed it
+      if (counters.get(userId) == loading) {
+        counters.put(userId,new Counts(new HashMap<>(byStatus),System.nanoTime() + ttlNanos));
+      }
+    }
+    return byStatus;
+  }
+  private static void afterCommit(  Runnable action){
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter(){
+        @Override public void afterCommit(){
+          action.run();
+        }
+      }
+);
+    }
+ else {
+      action.run();
+    }
+  }
+  /**
+ * The counts of a user, or a placeholder with  {@code null} counts while they are being rebuilt.
+ */
+  private static final class Counts {
+    final Map<Short,Integer> byStatus;
+    final long expiresAt;
+    Counts(    Map<Short,Integer> byStatus,    long expiresAt){
+      this.byStatus=byStatus;
+      this.expiresAt=expiresAt;
+    }
+  }
+}
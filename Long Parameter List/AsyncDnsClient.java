@@ -0,0 +1,400 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking DNS client: queries are sent over a few UDP {@link DatagramChannel}s and their responses matched by a
+ * single selector thread, so any number of concurrent queries costs no thread each.
+ * <p>
+ * Every query gets a random 16-bit id that is unique among the queries in flight, and every attempt is sent from one of
+ * {@value #SOCKETS} sockets picked at random, each bound to an ephemeral port chosen by the operating system. A socket is
+ * replaced by a freshly bound one after {@value #ATTEMPTS_PER_SOCKET} attempts, and closed once the responses to them can
+ * no longer be accepted, so that a spoofed response has to guess a source port that changes every few queries as well as
+ * the id, much like with a blocking client that binds a new socket per query. A response is accepted only on the socket
+ * and from the server the query was last sent from and to, with the query's id and question. A query that is not answered within the timeout,
+ * or that is answered with {@code SERVFAIL} or {@code REFUSED}, is sent again to the next server, up to the configured
+ * number of attempts; servers are tried in rotation, starting with a different one for each query. Once all attempts are
+ * exhausted, the future completes with the last {@code SERVFAIL} or {@code REFUSED} response, if any, or else
+ * exceptionally with a {@link SocketTimeoutException}.
+ * <p>
+ * This client neither validates DNSSEC nor retries over TCP: a response with the truncated flag set is returned as is,
+ * and it is up to the caller to fall back to a blocking resolver. The futures are completed on the selector thread, so
+ * dependent actions that may block must be attached with an executor.
+ */
+final class AsyncDnsClient implements Closeable {
+
+    static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+    static final int DEFAULT_ATTEMPTS = 3;
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncDnsClient.class.getName());
+    private static final int DNS_PORT = 53;
+    private static final int UDP_PAYLOAD_SIZE = 4096;
+    private static final int RECEIVE_BUFFER_SIZE = 1 << 20;
+    private static final int MAX_ID_TRIES = 16;
+    private static final int SOCKETS = 8;
+    private static final int ATTEMPTS_PER_SOCKET = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final List<InetSocketAddress> servers;
+    private final long timeoutNanos;
+    private final int attempts;
+    private final Port[] ports = new Port[SOCKETS];
+    private final Selector selector;
+    private final Map<Integer, Query> inFlight = new ConcurrentHashMap<>();
+    private final Queue<Query> submitted = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    // Only accessed by the selector thread.
+    private final Queue<Query> sendQueue = new ArrayDeque<>();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>((d1, d2) -> Long.compare(d1.at, d2.at));
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(UDP_PAYLOAD_SIZE);
+    private final Queue<Port> retired = new ArrayDeque<>();
+    private int nextServer;
+
+    /**
+     * @param servers the DNS servers, tried in rotation
+     * @param timeout the time to wait for a response before the next attempt
+     * @param unit the unit of {@code timeout}
+     * @param attempts the number of times a query is sent at most
+     * @throws IOException if the channels cannot be opened
+     */
+    AsyncDnsClient(List<InetSocketAddress> servers, long timeout, TimeUnit unit, int attempts) throws IOException {
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("No DNS servers");
+        }
+        if (attempts < 1) {
+            throw new IllegalArgumentException("attempts must be positive: " + attempts);
+        }
+        this.servers = new ArrayList<>(servers);
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.attempts = attempts;
+        this.selector = Selector.open();
+        try {
+            for (int i = 0; i < SOCKETS; i++) {
+                ports[i] = openPort();
+            }
+        } catch (IOException e) {
+            closeChannels();
+            throw e;
+        }
+        Thread thread = new Thread(this::run, "MiniDnsResolver Async");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Creates a client for the system's DNS servers, with the default timeout and attempts.
+     *
+     * @throws IOException if no DNS server is found or the channels cannot be opened
+     */
+    static AsyncDnsClient create() throws IOException {
+        List<InetSocketAddress> servers = new ArrayList<>();
+        List<InetAddress> addresses = DnsClient.findDnsAddresses();
+        if (addresses != null) {
+            for (InetAddress address : addresses) {
+                servers.add(new InetSocketAddress(address, DNS_PORT));
+            }
+        }
+        if (servers.isEmpty()) {
+            throw new IOException("Could not find any DNS server");
+        }
+        return new AsyncDnsClient(servers, DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_ATTEMPTS);
+    }
+
+    /**
+     * Sends a recursive query.
+     *
+     * @return the response, which may be unsuccessful or truncated
+     */
+    CompletableFuture<DnsMessage> query(DnsName name, Record.TYPE type) {
+        CompletableFuture<DnsMessage> future = new CompletableFuture<>();
+        if (closed) {
+            future.completeExceptionally(new ClosedChannelException());
+            return future;
+        }
+        Question question = new Question(name, type);
+        Query query = null;
+        for (int i = 0; i < MAX_ID_TRIES && query == null; i++) {
+            int id = RANDOM.nextInt(1 << 16);
+            Query candidate = new Query(id, question, future);
+            if (inFlight.putIfAbsent(id, candidate) == null) {
+                query = candidate;
+            }
+        }
+        if (query == null) {
+            future.completeExceptionally(new IOException("Too many DNS queries in flight"));
+            return future;
+        }
+        Query registered = query;
+        // Also frees the id when the caller cancels the future.
+        future.whenComplete((response, throwable) -> inFlight.remove(registered.id, registered));
+        submitted.add(query);
+        selector.wakeup();
+        if (closed) {
+            // Closed after the check above: the selector thread may already have failed the queries in flight.
+            future.completeExceptionally(new ClosedChannelException());
+        }
+        return future;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                long now = System.nanoTime();
+                for (Query query; (query = submitted.poll()) != null;) {
+                    schedule(query, now);
+                }
+                expire(now);
+                closeRetired(now);
+                flush();
+                long wait = deadlines.isEmpty() ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlines.peek().at - now));
+                selector.select(wait);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (key.isReadable()) {
+                        receive((DatagramChannel) key.channel());
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "DNS selector thread failed", e);
+        } finally {
+            closed = true;
+            for (Query query : inFlight.values()) {
+                query.future.completeExceptionally(new ClosedChannelException());
+            }
+            closeChannels();
+        }
+    }
+
+    private void closeChannels() {
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not close DNS selector", e);
+        }
+        for (Port port : ports) {
+            if (port != null) {
+                closePort(port);
+            }
+        }
+        for (Port port; (port = retired.poll()) != null;) {
+            closePort(port);
+        }
+    }
+
+    private Port openPort() throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.configureBlocking(false);
+            // Responses to a burst of queries arrive in a burst too; the kernel caps this to its maximum.
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER_SIZE / SOCKETS);
+            channel.bind(null);
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new Port(channel);
+    }
+
+    private static void closePort(Port port) {
+        try {
+            port.channel.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not close DNS channel", e);
+        }
+    }
+
+    /**
+     * Returns a random socket for the next attempt, replacing it first if it has been used for
+     * {@value #ATTEMPTS_PER_SOCKET} attempts.
+     */
+    private DatagramChannel nextChannel(long now) {
+        int slot = RANDOM.nextInt(SOCKETS);
+        Port port = ports[slot];
+        if (port.attempts >= ATTEMPTS_PER_SOCKET) {
+            try {
+                Port fresh = openPort();
+                // No attempt is sent from the old socket any more: the last one has timed out by then.
+                port.closeAt = now + timeoutNanos;
+                retired.add(port);
+                ports[slot] = port = fresh;
+            } catch (IOException e) {
+                // E.g. out of file descriptors: keep the old socket and try again on its next attempt.
+                LOGGER.log(Level.FINE, "Could not open DNS channel", e);
+            }
+        }
+        port.attempts++;
+        return port.channel;
+    }
+
+    private void closeRetired(long now) {
+        while (!retired.isEmpty() && now - retired.peek().closeAt >= 0) {
+            closePort(retired.poll());
+        }
+    }
+
+    /**
+     * Queues the next attempt of a query, to the next server and from a random socket.
+     */
+    private void schedule(Query query, long now) {
+        if (query.attempt == 0) {
+            query.firstServer = nextServer;
+            nextServer = (nextServer + 1) % servers.size();
+        }
+        query.server = servers.get((query.firstServer + query.attempt) % servers.size());
+        query.channel = nextChannel(now);
+        query.attempt++;
+        sendQueue.add(query);
+        deadlines.add(new Deadline(query, now + timeoutNanos));
+    }
+
+    private void expire(long now) {
+        while (!deadlines.isEmpty() && now - deadlines.peek().at >= 0) {
+            Deadline deadline = deadlines.poll();
+            Query query = deadline.query;
+            // Skip the deadlines of answered queries and of attempts already superseded by a retry.
+            if (query.future.isDone() || deadline.attempt != query.attempt) {
+                continue;
+            }
+            if (query.attempt < attempts) {
+                schedule(query, now);
+            } else if (query.failureResponse != null) {
+                query.future.complete(query.failureResponse);
+            } else {
+                query.future.completeExceptionally(new SocketTimeoutException("No response to " + query.question
+                        + " after " + attempts + " attempts"));
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        for (Query query; (query = sendQueue.peek()) != null;) {
+            if (query.future.isDone()) {
+                sendQueue.poll();
+                continue;
+            }
+            try {
+                if (query.channel.send(ByteBuffer.wrap(query.request), query.server) == 0) {
+                    // Socket buffer full: wait until the channel is writable.
+                    query.channel.keyFor(selector).interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+            } catch (IOException e) {
+                if (e instanceof ClosedChannelException) {
+                    throw e;
+                }
+                // E.g. no route to this server: let the query time out and move on to the next one.
+                LOGGER.log(Level.FINE, "Could not send DNS query to " + query.server, e);
+            }
+            sendQueue.poll();
+        }
+    }
+
+    private void receive(DatagramChannel channel) throws IOException {
+        for (SocketAddress from; (from = channel.receive(receiveBuffer)) != null; receiveBuffer.clear()) {
+            receiveBuffer.flip();
+            byte[] bytes = new byte[receiveBuffer.remaining()];
+            receiveBuffer.get(bytes);
+            DnsMessage response;
+            try {
+                response = new DnsMessage(bytes);
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Ignoring malformed DNS response from " + from, e);
+                continue;
+            }
+            Query query = inFlight.get(response.id);
+            if (query == null || channel != query.channel || !from.equals(query.server)
+                    || !query.question.equals(response.getQuestion())) {
+                continue;
+            }
+            if ((response.responseCode == DnsMessage.RESPONSE_CODE.SERVER_FAIL
+                    || response.responseCode == DnsMessage.RESPONSE_CODE.REFUSED) && query.attempt < attempts) {
+                // Returned if the remaining attempts time out.
+                query.failureResponse = response;
+                schedule(query, System.nanoTime());
+                continue;
+            }
+            query.future.complete(response);
+        }
+        receiveBuffer.clear();
+    }
+
+    private static final class Query {
+
+        final int id;
+        final Question question;
+        final byte[] request;
+        final CompletableFuture<DnsMessage> future;
+        int firstServer;
+        InetSocketAddress server;
+        DatagramChannel channel;
+        int attempt;
+        DnsMessage failureResponse;
+
+        Query(int id, Question question, CompletableFuture<DnsMessage> future) {
+            this.id = id;
+            this.question = question;
+            this.future = future;
+            DnsMessage.Builder message = DnsMessage.builder().setId(id).setRecursionDesired(true).setQuestion(question);
+            message.getEdnsBuilder().setUdpPayloadSize(UDP_PAYLOAD_SIZE);
+            this.request = message.build().toArray();
+        }
+    }
+
+    private static final class Port {
+
+        final DatagramChannel channel;
+        int attempts;
+        long closeAt;
+
+        Port(DatagramChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private static final class Deadline {
+
+        final Query query;
+        final int attempt;
+        final long at;
+
+        Deadline(Query query, long at) {
+            this.query = query;
+            this.attempt = query.attempt;
+            this.at = at;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Delay} with decorrelated jitter: a random value between {@code base} and three times the previous delay, within
+ * {@code lower} and {@code upper}. Each client needs its own instance, see {@link Delay#decorrelatedJitter(JitterOpts)}.
+ */
+class DecorrelatedJitterDelay extends Delay implements Delay.StatefulDelay {
+
+    private final Duration lower;
+    private final Duration upper;
+    private final long base;
+    private final TimeUnit targetTimeUnit;
+    private final Random random;
+
+    // in targetTimeUnit
+    private volatile long previous;
+
+    DecorrelatedJitterDelay(Duration lower, Duration upper, long base, TimeUnit targetTimeUnit) {
+        this(lower, upper, base, targetTimeUnit, null);
+    }
+
+    /**
+     * @param random the source of the jitter, or {@code null} for {@link java.util.concurrent.ThreadLocalRandom}
+     */
+    DecorrelatedJitterDelay(Duration lower, Duration upper, long base, TimeUnit targetTimeUnit, Random random) {
+        this.lower = lower;
+        this.upper = upper;
+        this.base = base;
+        this.targetTimeUnit = targetTimeUnit;
+        this.random = random;
+    }
+
+    @Override
+    public Duration createDelay(long attempt) {
+        long upperBase = previous > Long.MAX_VALUE / 3 ? Long.MAX_VALUE : previous * 3;
+        long value = randomBetween(random, base, Math.max(base, upperBase));
+        Duration delay = applyBounds(Duration.ofNanos(targetTimeUnit.toNanos(value)), lower, upper);
+        previous = targetTimeUnit.convert(delay.toNanos(), TimeUnit.NANOSECONDS);
+        return delay;
+    }
+
+    @Override
+    public void reset() {
+        previous = 0;
+    }
+}
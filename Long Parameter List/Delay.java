@@ -1,4 +1,5 @@
 import java.time.Duration;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -9,6 +10,7 @@ public abstract class Delay {
     private static final Duration DEFAULT_UPPER_BOUND = Duration.ofSeconds(30);
     private static final int DEFAULT_POWER_OF = 2;
     private static final TimeUnit DEFAULT_TIMEUNIT = TimeUnit.MILLISECONDS;
+    private static final int DEFAULT_ADAPTIVE_STEPS = 10;
 
     protected Delay() { }
 
@@ -50,6 +52,53 @@ public abstract class Delay {
         return () -> new DecorrelatedJitterDelay(opts.lower(), opts.upper(), opts.base(), opts.unit());
     }
 
+    /**
+     * {@link #equalJitter(JitterOpts)} drawing its jitter from {@code random}, e.g. for a reproducible simulation. The delay
+     * is only as thread-safe as {@code random}.
+     */
+    static Delay equalJitter(JitterOpts opts, Random random) {
+        return new EqualJitterDelay(opts.lower(), opts.upper(), opts.base(), opts.unit(), random);
+    }
+
+    /**
+     * {@link #fullJitter(JitterOpts)} drawing its jitter from {@code random}, see {@link #equalJitter(JitterOpts, Random)}.
+     */
+    static Delay fullJitter(JitterOpts opts, Random random) {
+        return new FullJitterDelay(opts.lower(), opts.upper(), opts.base(), opts.unit(), random);
+    }
+
+    /**
+     * One delay of {@link #decorrelatedJitter(JitterOpts)} drawing its jitter from {@code random}, see
+     * {@link #equalJitter(JitterOpts, Random)}.
+     */
+    static Delay decorrelatedJitter(JitterOpts opts, Random random) {
+        return new DecorrelatedJitterDelay(opts.lower(), opts.upper(), opts.base(), opts.unit(), random);
+    }
+
+    public static AdaptiveDelay adaptive(ExponentialOpts opts) {
+        Duration step = opts.upper().minus(opts.lower()).dividedBy(DEFAULT_ADAPTIVE_STEPS);
+        return adaptive(opts, step.isZero() ? Duration.ofNanos(1) : step);
+    }
+
+    public static AdaptiveDelay adaptive(ExponentialOpts opts, Duration decreaseStep) {
+        LettuceAssert.notNull(opts, "Opts must not be null");
+        LettuceAssert.notNull(decreaseStep, "Decrease step must not be null");
+        LettuceAssert.isTrue(decreaseStep.toNanos() > 0, "Decrease step must be greater than 0");
+        return new AdaptiveDelay(opts.lower(), opts.upper(), opts.powersOf(), decreaseStep, opts.unit());
+    }
+
+    public static Delay budgeted(Delay delay, RetryBudget budget) {
+        LettuceAssert.notNull(delay, "Delay must not be null");
+        LettuceAssert.notNull(budget, "RetryBudget must not be null");
+        return new RetryBudget.BudgetedDelay(delay, budget, DEFAULT_TIMEUNIT);
+    }
+
+    public static Supplier<Delay> budgeted(Supplier<Delay> delay, RetryBudget budget) {
+        LettuceAssert.notNull(delay, "Delay supplier must not be null");
+        LettuceAssert.notNull(budget, "RetryBudget must not be null");
+        return () -> budgeted(delay.get(), budget);
+    }
+
     public static long randomBetween(long min, long max) {
         if (min >= max) {
             return min;
@@ -57,6 +106,33 @@ public abstract class Delay {
         return ThreadLocalRandom.current().nextLong(min, max);
     }
 
+    /**
+     * {@link #randomBetween(long, long)} drawing from {@code random}, or from {@link ThreadLocalRandom} if it is
+     * {@code null}.
+     */
+    static long randomBetween(Random random, long min, long max) {
+        if (random == null) {
+            return randomBetween(min, max);
+        }
+        if (min >= max) {
+            return min;
+        }
+        return random.nextLong(min, max);
+    }
+
+    /**
+     * {@code base * 2^(attempt - 1)}, saturating at {@link Long#MAX_VALUE}.
+     */
+    static long powerOfTwo(long base, long attempt) {
+        if (attempt <= 0) {
+            return 0;
+        }
+        if (attempt > 63 || base > Long.MAX_VALUE >> (attempt - 1)) {
+            return Long.MAX_VALUE;
+        }
+        return base << (attempt - 1);
+    }
+
     protected static Duration applyBounds(Duration calculatedValue, Duration lower, Duration upper) {
         if (calculatedValue.compareTo(lower) < 0) {
             return lower;
@@ -0,0 +1,68 @@
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH companion of {@link ReconnectStormSimulator}: cost of {@link Delay#createDelay(long)} per strategy, with the
+ * jitter drawn from {@link java.util.concurrent.ThreadLocalRandom} as in production rather than from a seeded
+ * {@link java.util.Random}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DelayBenchmark {
+
+    @Param({ "exponential", "equalJitter", "fullJitter", "decorrelatedJitter", "adaptive" })
+    String strategy;
+
+    // low attempts stay below the upper bound, high attempts exercise the clamping path
+    @Param({ "3", "40" })
+    long attempt;
+
+    private Delay delay;
+
+    @Setup
+    public void setup() {
+        Delay.JitterOpts jitter = new Delay.JitterOpts(Duration.ZERO, Duration.ofSeconds(30), 100, TimeUnit.MILLISECONDS);
+        Delay.ExponentialOpts exponential = new Delay.ExponentialOpts(Duration.ZERO, Duration.ofSeconds(30), 2,
+                TimeUnit.MILLISECONDS);
+        switch (strategy) {
+            case "exponential":
+                delay = Delay.exponential();
+                break;
+            case "equalJitter":
+                delay = Delay.equalJitter(jitter);
+                break;
+            case "fullJitter":
+                delay = Delay.fullJitter(jitter);
+                break;
+            case "decorrelatedJitter":
+                delay = Delay.decorrelatedJitter(jitter).get();
+                break;
+            case "adaptive":
+                delay = Delay.adaptive(exponential);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+
+    @Benchmark
+    public Duration createDelay() {
+        return delay.createDelay(attempt);
+    }
+}
@@ -0,0 +1,383 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-aware cache of {@link ResolverResult}s, in front of a {@link ResolverApi}.
+ * <p>
+ * Results are keyed by whether they came from the DNSSEC resolver, their record type and name, so authenticated and
+ * unauthenticated results never mix. A successful result is kept for the smallest TTL of its answers, clamped to
+ * [{@value #MIN_TTL_SECONDS}, {@value #MAX_TTL_SECONDS}] seconds. NXDOMAIN and other unsuccessful responses, as well as
+ * answers without records, are kept for {@value #NEGATIVE_TTL_SECONDS} seconds, and a lookup that failed with an
+ * {@link IOException} is rethrown for {@value #FAILURE_TTL_SECONDS} seconds, so that a reconnect storm does not resend the
+ * query that just failed. A lookup that failed because its thread was interrupted says nothing about the name: it is
+ * neither cached nor passed on to the callers waiting for it, which run the query again.
+ * <p>
+ * Concurrent misses for the same key wait for a single query. A result hit at least {@value #PREFETCH_MIN_HITS} times is
+ * refreshed in the background once {@value #PREFETCH_PERCENT}% of its TTL has elapsed, while the current result keeps
+ * being served, so popular names do not expire under load. A refresh that fails keeps the current result until it
+ * expires, and a refresh the prefetch executor rejects is skipped. The least recently used entries are evicted beyond
+ * the maximum size.
+ * <p>
+ * Raw responses of asynchronous queries, see {@link #resolveAsync}, are cached under the same rules, but apart from the
+ * {@link ResolverResult}s of the same name and type.
+ */
+final class DnsResultCache {
+
+    static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final long MIN_TTL_SECONDS = 1;
+    private static final long MAX_TTL_SECONDS = 3600;
+    private static final long NEGATIVE_TTL_SECONDS = 30;
+    private static final long FAILURE_TTL_SECONDS = 5;
+    private static final int PREFETCH_MIN_HITS = 2;
+    private static final int PREFETCH_PERCENT = 80;
+
+    /**
+     * A DNS query, run on a cache miss or to refresh an entry.
+     */
+    interface Query<R extends ResolverResult<?>> {
+        R resolve() throws IOException;
+    }
+
+    private final Map<Key, Entry> entries;
+    private final Map<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+    private final Executor prefetchExecutor;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize the maximum number of cached results
+     * @param prefetchExecutor the executor refreshing popular entries ahead of expiry, which should reject refreshes when
+     *        busy rather than run them on the calling thread
+     */
+    DnsResultCache(int maxSize, Executor prefetchExecutor) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.prefetchExecutor = prefetchExecutor;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result of a query, running it if there is no live cached result.
+     *
+     * @param dnssec whether the query goes through the DNSSEC resolver
+     * @param type the record type queried
+     * @param name the name queried
+     * @param query the query
+     * @return the result of the query, possibly cached
+     * @throws IOException if the query failed, possibly a cached failure
+     */
+    <R extends ResolverResult<?>> R resolve(boolean dnssec, Class<?> type, DnsName name, Query<R> query)
+            throws IOException {
+        Key key = new Key(dnssec, type, name);
+        long now = System.nanoTime();
+        Entry entry = get(key, now);
+        if (entry != null) {
+            hits.increment();
+            maybePrefetch(key, entry, now, query);
+            return entry.value();
+        }
+        misses.increment();
+
+        for (;;) {
+            CompletableFuture<Entry> mine = new CompletableFuture<>();
+            CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                entry = await(running);
+                if (entry != null) {
+                    return entry.value();
+                }
+                // The thread running the query was interrupted: run it on this one.
+                continue;
+            }
+            try {
+                entry = load(query);
+                put(key, entry);
+                mine.complete(entry);
+            } catch (IOException | RuntimeException | Error e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+            return entry.value();
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #resolve}, for raw responses such as those of {@link AsyncDnsClient}. Concurrent
+     * misses for the same name and type share one query. A truncated response is passed on but not cached, and so is a
+     * failure other than an {@link IOException}, such as a cancelled query. Cached entries are not prefetched.
+     * <p>
+     * The future may complete on the thread completing the query.
+     *
+     * @param type the record type queried
+     * @param name the name queried
+     * @param query sends the query
+     * @return the response to the query, possibly cached
+     */
+    CompletableFuture<DnsMessage> resolveAsync(Record.TYPE type, DnsName name,
+            Supplier<CompletableFuture<DnsMessage>> query) {
+        Key key = new Key(false, type, name);
+        long now = System.nanoTime();
+        Entry entry = get(key, now);
+        if (entry != null) {
+            hits.increment();
+            return entry.future();
+        }
+        misses.increment();
+
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running.thenCompose(Entry::future);
+        }
+        CompletableFuture<DnsMessage> sent;
+        try {
+            sent = query.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        sent.whenComplete((response, throwable) -> {
+            try {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause() : throwable;
+                if (cause == null) {
+                    Entry loaded = new Entry(response, null, now, ttlSeconds(
+                            response.responseCode == DnsMessage.RESPONSE_CODE.NO_ERROR && hasAnswer(response, type),
+                            response));
+                    if (!response.truncated) {
+                        put(key, loaded);
+                    }
+                    mine.complete(loaded);
+                } else if (cause instanceof IOException) {
+                    Entry failed = new Entry(null, (IOException) cause, now, FAILURE_TTL_SECONDS);
+                    put(key, failed);
+                    mine.complete(failed);
+                } else {
+                    mine.completeExceptionally(cause);
+                }
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        });
+        return mine.thenCompose(Entry::future);
+    }
+
+    /**
+     * Returns the live cached result of a query without running it.
+     *
+     * @return the cached result, or {@code null} if there is none
+     * @throws IOException if the query failed and its failure is cached
+     */
+    <R extends ResolverResult<?>> R getIfPresent(boolean dnssec, Class<?> type, DnsName name) throws IOException {
+        Entry entry = get(new Key(dnssec, type, name), System.nanoTime());
+        if (entry == null) {
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Drops all cached results, e.g. after a network change.
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized Entry get(Key key, long now) {
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.expiresAt >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    private void maybePrefetch(Key key, Entry entry, long now, Query<?> query) {
+        if (entry.result == null || entry.hits.incrementAndGet() < PREFETCH_MIN_HITS || now - entry.refreshAt < 0
+                || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    Entry refreshed = load(query);
+                    if (refreshed.failure == null) {
+                        put(key, refreshed);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Keep serving the current entry until it expires; the next miss will report the problem.
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Runs a query, turning its failure into an entry unless the failure was caused by an interrupt.
+     *
+     * @throws IOException if the query was interrupted
+     */
+    private static Entry load(Query<?> query) throws IOException {
+        long now = System.nanoTime();
+        ResolverResult<?> result;
+        try {
+            result = query.resolve();
+        } catch (IOException e) {
+            if (causedByInterrupt(e)) {
+                throw e;
+            }
+            return new Entry(null, e, now, FAILURE_TTL_SECONDS);
+        }
+        return new Entry(result, null, now, ttlSeconds(
+                result.wasSuccessful() && !result.getAnswersOrEmptySet().isEmpty(), result.getRawAnswer()));
+    }
+
+    /**
+     * Returns how long to keep a response, given whether it answered the question.
+     */
+    private static long ttlSeconds(boolean answered, DnsMessage rawAnswer) {
+        if (!answered || rawAnswer == null) {
+            return NEGATIVE_TTL_SECONDS;
+        }
+        return Math.max(MIN_TTL_SECONDS, Math.min(MAX_TTL_SECONDS, rawAnswer.getAnswersMinTtl()));
+    }
+
+    private static boolean hasAnswer(DnsMessage response, Record.TYPE type) {
+        for (Record<? extends Data> record : response.answerSection) {
+            if (record.type == type) return true;
+        }
+        return false;
+    }
+
+    private static boolean causedByInterrupt(IOException e) {
+        // A timeout is an InterruptedIOException too, but a real failure of the query.
+        return Thread.currentThread().isInterrupted() || e instanceof ClosedByInterruptException
+                || e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException);
+    }
+
+    /**
+     * Waits for the query run by another thread.
+     *
+     * @return its entry, or {@code null} if that thread was interrupted
+     */
+    private static Entry await(CompletableFuture<Entry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for DNS lookup");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            // Only interrupts are passed on as IOExceptions, other failures are cached entries.
+            return null;
+        }
+    }
+
+    /**
+     * The type is the record class for {@link ResolverResult}s and the {@link Record.TYPE} for raw responses.
+     */
+    private static final class Key {
+
+        private final boolean dnssec;
+        private final Object type;
+        private final DnsName name;
+
+        Key(boolean dnssec, Object type, DnsName name) {
+            this.dnssec = dnssec;
+            this.type = type;
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return dnssec == other.dnssec && type == other.type && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dnssec, type, name);
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object result;
+        private final IOException failure;
+        private final long expiresAt;
+        private final long refreshAt;
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(Object result, IOException failure, long now, long ttlSeconds) {
+            long ttl = TimeUnit.SECONDS.toNanos(ttlSeconds);
+            this.result = result;
+            this.failure = failure;
+            this.expiresAt = now + ttl;
+            this.refreshAt = now + ttl / 100 * PREFETCH_PERCENT;
+        }
+
+        @SuppressWarnings("unchecked")
+        <R extends ResolverResult<?>> R value() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+            return (R) result;
+        }
+
+        @SuppressWarnings("unchecked")
+        <R> CompletableFuture<R> future() {
+            CompletableFuture<R> future = new CompletableFuture<>();
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete((R) result);
+            }
+            return future;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Delay} with equal jitter: a random value between zero and {@code base * 2^(attempt - 1)}, within {@code lower} and
+ * {@code upper}.
+ */
+class EqualJitterDelay extends Delay {
+
+    private final Duration lower;
+    private final Duration upper;
+    private final long base;
+    private final TimeUnit targetTimeUnit;
+    private final Random random;
+
+    EqualJitterDelay(Duration lower, Duration upper, long base, TimeUnit targetTimeUnit) {
+        this(lower, upper, base, targetTimeUnit, null);
+    }
+
+    /**
+     * @param random the source of the jitter, or {@code null} for {@link java.util.concurrent.ThreadLocalRandom}
+     */
+    EqualJitterDelay(Duration lower, Duration upper, long base, TimeUnit targetTimeUnit, Random random) {
+        this.lower = lower;
+        this.upper = upper;
+        this.base = base;
+        this.targetTimeUnit = targetTimeUnit;
+        this.random = random;
+    }
+
+    @Override
+    public Duration createDelay(long attempt) {
+        long value = randomBetween(random, 0, powerOfTwo(base, attempt));
+        return applyBounds(Duration.ofNanos(targetTimeUnit.toNanos(value)), lower, upper);
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * The  {@code ExternalSort} class sorts the lines of an input that does not fit in memory. <p> Lines are read into chunks that fit a memory budget; each chunk is sorted in memory with  {@link AdaptiveSort} and written to a temporary run file. The runs are then merged <em>k</em> at a time through a min-priority queue, reading each run through memory-mapped windows, until one pass writes the result. Input size is bounded by free disk space rather than heap: memory use is the budget during the first phase and one window per run during merging. <p> Lines are compared with  {@link String#compareTo}, the same order as  {@link Selection}. Input and output are UTF-8.
+ */
+public class ExternalSort {
+  private static final int MAX_FAN_IN=64;
+  private static final int WINDOW_SIZE=1 << 22;
+  private static final int OUTPUT_BUFFER_SIZE=1 << 16;
+  private ExternalSort(){
+  }
+  /**
+ * Sorts the lines of  {@code in} and writes them to  {@code out}.
+ * @param in the input, read as UTF-8 lines
+ * @param out the output, one line per sorted line
+ * @param memoryBudget approximate number of bytes of heap to use for a chunk
+ * @throws IOException if reading, writing or a temporary file fails
+ */
+  public static void sort(  InputStream in,  OutputStream out,  long memoryBudget) throws IOException {
+    if (memoryBudget <= 0)     throw new IllegalArgumentException("memory budget must be positive: " + memoryBudget);
+    Path dir=Files.createTempDirectory("extsort");
+    List<Path> runs=new ArrayList<Path>();
+    try {
+      BufferedReader reader=new BufferedReader(new InputStreamReader(in,StandardCharsets.UTF_8),OUTPUT_BUFFER_SIZE);
+      List<String> chunk=new ArrayList<String>();
+      long used=0;
+      String line;
+      while ((line=reader.readLine()) != null) {
+        chunk.add(line);
+        used+=estimatedSize(line);
+        if (used >= memoryBudget) {
+          runs.add(writeRun(dir,chunk));
+          chunk.clear();
+          used=0;
+        }
+      }
+      if (runs.isEmpty()) {
+        String[] a=chunk.toArray(new String[0]);
+        AdaptiveSort.sort(a);
+        writeLines(a,out);
+        return;
+      }
+      if (!chunk.isEmpty()) {
+        runs.add(writeRun(dir,chunk));
+        chunk.clear();
+      }
+      while (runs.size() > MAX_FAN_IN) {
+        List<Path> merged=new ArrayList<Path>();
+        for (int i=0; i < runs.size(); i+=MAX_FAN_IN) {
+          List<Path> group=runs.subList(i,Math.min(i + MAX_FAN_IN,runs.size()));
+          Path run=Files.createTempFile(dir,"run",".txt");
+          try (OutputStream os=Files.newOutputStream(run)){
+            merge(group,os);
+          }
+          for (          Path p : group)           Files.delete(p);
+          merged.add(run);
+        }
+        runs=merged;
+      }
+      merge(runs,out);
+    }
+  finally {
+      deleteRecursively(dir);
+    }
+  }
+  private static void deleteRecursively(  Path dir) throws IOException {
+    try (DirectoryStream<Path> files=Files.newDirectoryStream(dir)){
+      for (      Path p : files)       Files.deleteIfExists(p);
+    }
+    Files.deleteIfExists(dir);
+  }
+  private static Path writeRun(  Path dir,  List<String> chunk) throws IOException {
+    String[] a=chunk.toArray(new String[0]);
+    AdaptiveSort.sort(a);
+    Path run=Files.createTempFile(dir,"run",".txt");
+    try (OutputStream os=Files.newOutputStream(run)){
+      writeLines(a,os);
+    }
+    return run;
+  }
+  private static void writeLines(  String[] a,  OutputStream out) throws IOException {
+    Writer w=new BufferedWriter(new OutputStreamWriter(out,StandardCharsets.UTF_8),OUTPUT_BUFFER_SIZE);
+    for (int i=0; i < a.length; i++) {
+      w.write(a[i]);
+      w.write('\n');
+    }
+    w.flush();
+  }
+  /**
+ * k-way merge of sorted runs: the priority queue holds the current line of each run, ties are broken by run index so the merge is stable.
+ */
+  private static void merge(  List<Path> runs,  OutputStream out) throws IOException {
+    Writer w=new BufferedWriter(new OutputStreamWriter(out,StandardCharsets.UTF_8),OUTPUT_BUFFER_SIZE);
+    MappedLineReader[] readers=new MappedLineReader[runs.size()];
+    try {
+      PriorityQueue<Head> pq=new PriorityQueue<Head>(runs.size());
+      for (int i=0; i < readers.length; i++) {
+        readers[i]=new MappedLineReader(runs.get(i));
+        String line=readers[i].readLine();
+        if (line != null)         pq.add(new Head(line,i));
+      }
+      while (!pq.isEmpty()) {
+        Head head=pq.poll();
+        w.write(head.line);
+        w.write('\n');
+        String next=readers[head.run].readLine();
+        if (next != null) {
+          head.line=next;
+          pq.add(head);
+        }
+      }
+      w.flush();
+    }
+  finally {
+      for (      MappedLineReader r : readers)       if (r != null)       r.close();
+    }
+  }
+  private static long estimatedSize(  String line){
+    return 64 + 2L * line.length();
+  }
+  private static final class Head implements Comparable<Head> {
+    String line;
+    final int run;
+    Head(    String line,    int run){
+      this.line=line;
+      this.run=run;
+    }
+    @Override public int compareTo(    Head that){
+      int cmp=line.compareTo(that.line);
+      return cmp != 0 ? cmp : Integer.compare(run,that.run);
+    }
+  }
+  /**
+ * Reads '\n'-terminated UTF-8 lines from a file through a sliding memory-mapped window. A line that crosses the end of the window is re-read from a window starting at the line; the window grows for lines longer than itself.
+ */
+  private static final class MappedLineReader implements Closeable {
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowSize=WINDOW_SIZE;
+    private byte[] bytes=new byte[256];
+    MappedLineReader(    Path file) throws IOException {
+      this.channel=FileChannel.open(file,StandardOpenOption.READ);
+      this.size=channel.size();
+      map(0);
+    }
+    private void map(    long start) throws IOException {
+      windowStart=start;
+      window=channel.map(FileChannel.MapMode.READ_ONLY,start,Math.min(windowSize,size - start));
+    }
+    String readLine() throws IOException {
+      while (true) {
+        long lineStart=windowStart + window.position();
+        if (lineStart >= size)         return null;
+        int from=window.position();
+        int limit=window.limit();
+        int i=from;
+        while (i < limit && window.get(i) != '\n')         i++;
+        if (i < limit || windowStart + limit == size) {
+          int length=i - from;
+          if (bytes.length < length)           bytes=new byte[Math.max(length,2 * bytes.length)];
+          window.get(bytes,0,length);
+          if (i < limit)           window.get();
+          return new String(bytes,0,length,StandardCharsets.UTF_8);
+        }
+        if (from == 0) {
+          if (windowSize > Integer.MAX_VALUE / 2)           throw new IOException("line longer than " + windowSize + " bytes");
+          windowSize*=2;
+        }
+        map(lineStart);
+      }
+    }
+    @Override public void close() throws IOException {
+      window=null;
+      channel.close();
+    }
+  }
+  /**
+ * Reads lines from standard input, sorts them within a memory budget and prints them to standard output.
+ * @param args the command-line arguments: optional memory budget in megabytes (default 64)
+ */
+  public static void main(  String[] args) throws IOException {
+    long budgetMb=args.length > 0 ? Long.parseLong(args[0]) : 64;
+    sort(System.in,System.out,budgetMb << 20);
+  }
+}
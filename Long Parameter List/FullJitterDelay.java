@@ -0,0 +1,39 @@
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Delay} with full jitter: half of {@code base * 2^(attempt - 1)}, capped at {@code upper}, plus a random value up to
+ * the other half, within {@code lower} and {@code upper}.
+ */
+class FullJitterDelay extends Delay {
+
+    private final Duration lower;
+    private final Duration upper;
+    private final long base;
+    private final TimeUnit targetTimeUnit;
+    private final Random random;
+
+    FullJitterDelay(Duration lower, Duration upper, long base, TimeUnit targetTimeUnit) {
+        this(lower, upper, base, targetTimeUnit, null);
+    }
+
+    /**
+     * @param random the source of the jitter, or {@code null} for {@link java.util.concurrent.ThreadLocalRandom}
+     */
+    FullJitterDelay(Duration lower, Duration upper, long base, TimeUnit targetTimeUnit, Random random) {
+        this.lower = lower;
+        this.upper = upper;
+        this.base = base;
+        this.targetTimeUnit = targetTimeUnit;
+        this.random = random;
+    }
+
+    @Override
+    public Duration createDelay(long attempt) {
+        long upperTarget = targetTimeUnit.convert(upper.toNanos(), TimeUnit.NANOSECONDS);
+        long temp = Math.min(upperTarget, powerOfTwo(base, attempt));
+        long value = temp / 2 + randomBetween(random, 0, temp / 2);
+        return applyBounds(Duration.ofNanos(targetTimeUnit.toNanos(value)), lower, upper);
+    }
+}
@@ -0,0 +1,203 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sends a hedge (another, identical request) when no request has completed within a delay, and cancels the requests that
+ * lose.
+ * <p>
+ * The hedge delay comes from {@link HedgeDelay}, which tracks a latency percentile of the completed requests, so only the
+ * slowest requests are hedged. Up to {@code maxHedges} hedges are sent per request, the n-th
+ * {@link HedgeDelay#createDelay(long) createDelay(n)} after the previous send. A shared {@link RetryBudget} caps the hedge
+ * rate: when it is exhausted, requests simply wait for the requests already sent.
+ */
+public class HedgedRequestScheduler {
+
+    private final ScheduledExecutorService timer;
+    private final HedgeDelay delay;
+    private final RetryBudget hedgeBudget;
+    private final int maxHedges;
+
+    public HedgedRequestScheduler(ScheduledExecutorService timer, HedgeDelay delay, RetryBudget hedgeBudget) {
+        this(timer, delay, hedgeBudget, 1);
+    }
+
+    public HedgedRequestScheduler(ScheduledExecutorService timer, HedgeDelay delay, RetryBudget hedgeBudget,
+            int maxHedges) {
+        LettuceAssert.notNull(timer, "Timer must not be null");
+        LettuceAssert.notNull(delay, "HedgeDelay must not be null");
+        LettuceAssert.notNull(hedgeBudget, "RetryBudget must not be null");
+        LettuceAssert.isTrue(maxHedges > 0, "MaxHedges must be greater than 0");
+        this.timer = timer;
+        this.delay = delay;
+        this.hedgeBudget = hedgeBudget;
+        this.maxHedges = maxHedges;
+    }
+
+    /**
+     * Execute {@code request}, hedging it if it is slower than the current hedge delay.
+     *
+     * @param request creates and sends a new request on each invocation.
+     * @return future completed by the first successful request, or exceptionally once all sent requests failed.
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> request) {
+        LettuceAssert.notNull(request, "Request must not be null");
+        Hedge<T> hedge = new Hedge<>(request);
+        hedge.send(false);
+        hedge.scheduleHedge(1);
+        hedge.result.whenComplete((r, e) -> hedge.cancelTimeout());
+        return hedge.result;
+    }
+
+    private final class Hedge<T> {
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Supplier<CompletableFuture<T>> request;
+        final List<CompletableFuture<T>> sent = new ArrayList<>(1 + maxHedges);
+
+        long firstSend;
+        int outstanding;
+        ScheduledFuture<?> timeout;
+
+        Hedge(Supplier<CompletableFuture<T>> request) {
+            this.request = request;
+        }
+
+        /**
+         * Schedules the {@code hedge}-th hedge, which is the request's attempt number for {@link HedgeDelay}.
+         */
+        void scheduleHedge(int hedge) {
+            Duration hedgeAfter = delay.createDelay(hedge);
+            ScheduledFuture<?> next = timer.schedule(() -> sendHedge(hedge), hedgeAfter.toNanos(), TimeUnit.NANOSECONDS);
+            synchronized (this) {
+                timeout = next;
+            }
+            // the result may have completed before the timeout was set
+            if (result.isDone()) {
+                next.cancel(false);
+            }
+        }
+
+        void sendHedge(int hedge) {
+            if (!result.isDone() && hedgeBudget.tryAcquire()) {
+                send(true);
+                if (hedge < maxHedges) {
+                    scheduleHedge(hedge + 1);
+                }
+            }
+        }
+
+        void cancelTimeout() {
+            ScheduledFuture<?> t;
+            synchronized (this) {
+                t = timeout;
+            }
+            if (t != null) {
+                t.cancel(false);
+            }
+        }
+
+        void send(boolean isHedge) {
+            CompletableFuture<T> future;
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                if (!isHedge) {
+                    firstSend = System.nanoTime();
+                }
+                outstanding++;
+            }
+            try {
+                future = request.get();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            boolean lost;
+            synchronized (this) {
+                sent.add(future);
+                // another request may have completed the result while this one was being sent
+                lost = result.isDone();
+            }
+            future.whenComplete((value, error) -> complete(value, error));
+            if (lost && !future.isDone()) {
+                future.cancel(true);
+            }
+        }
+
+        void complete(T value, Throwable error) {
+            boolean failAll;
+            synchronized (this) {
+                outstanding--;
+                // a failure is not hedged: fail once nothing else is in flight
+                failAll = error != null && outstanding == 0;
+            }
+            if (error == null) {
+                // measured from the first send, as the caller sees it, whichever request completes
+                delay.record(Duration.ofNanos(System.nanoTime() - firstSend));
+                if (result.complete(value)) {
+                    cancelLosers();
+                }
+            } else if (failAll && result.completeExceptionally(error)) {
+                cancelLosers();
+            }
+        }
+
+        void cancelLosers() {
+            List<CompletableFuture<T>> losers;
+            synchronized (this) {
+                losers = new ArrayList<>(sent);
+            }
+            for (CompletableFuture<T> loser : losers) {
+                if (!loser.isDone()) {
+                    loser.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@link Delay} that hedges at a latency percentile of recent requests, bounded by {@link Delay.ExponentialOpts}. The
+     * delay before the n-th hedge of a request is multiplied by {@code powersOf^(n-1)}. Until the first sample is recorded
+     * the upper bound is used.
+     */
+    public static class HedgeDelay extends Delay {
+
+        private final LatencyPercentileEstimator estimator;
+        private final double quantile;
+        private final Delay.ExponentialOpts opts;
+
+        public HedgeDelay(LatencyPercentileEstimator estimator, double quantile, Delay.ExponentialOpts opts) {
+            LettuceAssert.notNull(estimator, "Estimator must not be null");
+            LettuceAssert.isTrue(quantile > 0 && quantile < 1, "Quantile must be between 0 and 1");
+            LettuceAssert.notNull(opts, "Opts must not be null");
+            this.estimator = estimator;
+            this.quantile = quantile;
+            this.opts = opts;
+        }
+
+        public void record(Duration latency) {
+            estimator.record(latency);
+        }
+
+        @Override
+        public Duration createDelay(long attempt) {
+            Duration percentile = estimator.percentile(quantile);
+            if (percentile == null) {
+                return opts.upper();
+            }
+            long nanos = percentile.toNanos();
+            for (long i = 1; i < attempt && nanos < opts.upper().toNanos(); i++) {
+                nanos *= opts.powersOf();
+            }
+            long inTargetUnit = opts.unit().convert(nanos, TimeUnit.NANOSECONDS);
+            return applyBounds(Duration.ofNanos(opts.unit().toNanos(inTargetUnit)), opts.lower(), opts.upper());
+        }
+    }
+}
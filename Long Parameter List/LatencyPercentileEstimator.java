@@ -0,0 +1,140 @@
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Streaming latency percentile over a sliding time window.
+ * <p>
+ * Samples are counted in a log-linear histogram (16 linear sub-buckets per power of two, so at most ~6% relative error). The
+ * window is split into {@code slices} histograms that are recycled round-robin, which makes recording a single atomic
+ * increment and a percentile query a scan over a fixed number of counters, independent of the request rate.
+ * <p>
+ * A percentile is computed at most once per slice and quantile: it is cached until the current slice rotates, so queries on
+ * the request path usually cost a volatile read, and samples show up in percentiles with a delay of at most one slice.
+ */
+public class LatencyPercentileEstimator {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray[] slices;
+    private final AtomicLongArray sliceEpochs;
+    private final long sliceNanos;
+    private volatile Snapshot snapshot;
+
+    public LatencyPercentileEstimator(Duration window, int slices) {
+        LettuceAssert.notNull(window, "Window must not be null");
+        LettuceAssert.isTrue(slices > 1, "Slices must be greater than 1");
+        LettuceAssert.isTrue(window.toNanos() >= slices, "Window must be at least one nanosecond per slice");
+        this.sliceNanos = window.toNanos() / slices;
+        this.slices = new AtomicLongArray[slices];
+        this.sliceEpochs = new AtomicLongArray(slices);
+        for (int i = 0; i < slices; i++) {
+            this.slices[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public void record(Duration latency) {
+        recordNanos(latency.toNanos());
+    }
+
+    public void recordNanos(long latencyNanos) {
+        currentSlice(System.nanoTime()).incrementAndGet(bucketOf(Math.max(0, latencyNanos)));
+    }
+
+    /**
+     * @param quantile between {@code 0} and {@code 1}, e.g. {@code 0.95}.
+     * @return the estimated latency at {@code quantile}, or {@code null} if no sample was recorded in the window.
+     */
+    public Duration percentile(double quantile) {
+        LettuceAssert.isTrue(quantile >= 0 && quantile <= 1, "Quantile must be between 0 and 1");
+        long epoch = Math.floorDiv(System.nanoTime(), sliceNanos);
+        Snapshot cached = snapshot;
+        if (cached != null && cached.epoch == epoch && cached.quantile == quantile) {
+            return cached.percentile;
+        }
+        Duration percentile = compute(quantile, epoch);
+        snapshot = new Snapshot(epoch, quantile, percentile);
+        return percentile;
+    }
+
+    private Duration compute(double quantile, long epoch) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int s = 0; s < slices.length; s++) {
+            if (epoch - sliceEpochs.get(s) >= slices.length) {
+                continue; // expired, will be cleared on its next use
+            }
+            AtomicLongArray slice = slices[s];
+            for (int b = 0; b < BUCKETS; b++) {
+                long c = slice.get(b);
+                counts[b] += c;
+                total += c;
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Duration.ofNanos(upperBoundOf(b));
+            }
+        }
+        return Duration.ofNanos(upperBoundOf(BUCKETS - 1));
+    }
+
+    private AtomicLongArray currentSlice(long now) {
+        // nanoTime may be negative
+        long epoch = Math.floorDiv(now, sliceNanos);
+        int index = (int) Math.floorMod(epoch, (long) slices.length);
+        AtomicLongArray slice = slices[index];
+        if (sliceEpochs.get(index) != epoch) {
+            synchronized (slice) {
+                if (sliceEpochs.get(index) != epoch) {
+                    for (int b = 0; b < BUCKETS; b++) {
+                        slice.set(b, 0);
+                    }
+                    sliceEpochs.set(index, epoch);
+                }
+            }
+        }
+        return slice;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int subBucket = (int) (value >>> (exponent - 1)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBoundOf(int bucket) {
+        int exponent = bucket / SUB_BUCKETS;
+        long subBucket = bucket % SUB_BUCKETS;
+        if (exponent == 0) {
+            return subBucket;
+        }
+        long base = (SUB_BUCKETS | subBucket) << (exponent - 1);
+        long width = 1L << (exponent - 1);
+        return base + width - 1 < 0 ? Long.MAX_VALUE : base + width - 1;
+    }
+
+    private static final class Snapshot {
+
+        final long epoch;
+        final double quantile;
+        final Duration percentile;
+
+        Snapshot(long epoch, double quantile, Duration percentile) {
+            this.epoch = epoch;
+            this.quantile = quantile;
+            this.percentile = percentile;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * Streaming queries over the aftersale table, in two flavours that MySQL Connector/J handles differently. A cursor must be consumed inside a transaction and closed afterwards. <p> {@link #cursor} uses a forward-only result set with fetch size  {@value #STREAMING_FETCH_SIZE}, which the driver treats as row-by-row streaming: it never buffers the result, but until the cursor is closed the connection, and so the transaction, cannot run any other statement. <p> {@link #cursorFetch} uses fetch size  {@value #CURSOR_FETCH_SIZE}. With <code>useCursorFetch=true</code> in the JDBC URL the driver reads that many rows at a time from a server-side cursor, and the connection stays usable for other statements; without it the driver ignores the fetch size and buffers the whole result.
+ */
+@Mapper public interface LitemallAftersaleCursorMapper {
+  int STREAMING_FETCH_SIZE=Integer.MIN_VALUE;
+  int CURSOR_FETCH_SIZE=500;
+  @Select({"<script>","select * from litemall_aftersale where deleted = 0","<if test='userId != null'> and user_id = #{userId}</if>","<if test='status != null'> and `status` = #{status}</if>","<if test='from != null'> and add_time &gt;= #{from}</if>","<if test='to != null'> and add_time &lt; #{to}</if>","order by id","</script>"}) @Options(resultSetType=ResultSetType.FORWARD_ONLY,fetchSize=STREAMING_FETCH_SIZE) @ResultMap("org.linlinjava.litemall.db.dao.LitemallAftersaleMapper.BaseResultMap") Cursor<LitemallAftersale> cursor(  @Param("userId") Integer userId,  @Param("status") Short status,  @Param("from") LocalDateTime from,  @Param("to") LocalDateTime to);
+  @Select({"<script>","select * from litemall_aftersale where deleted = 0","<if test='userId != null'> and user_id = #{userId}</if>","<if test='status != null'> and `status` = #{status}</if>","<if test='from != null'> and add_time &gt;= #{from}</if>","<if test='to != null'> and add_time &lt; #{to}</if>","order by id","</script>"}) @Options(resultSetType=ResultSetType.FORWARD_ONLY,fetchSize=CURSOR_FETCH_SIZE) @ResultMap("org.linlinjava.litemall.db.dao.LitemallAftersaleMapper.BaseResultMap") Cursor<LitemallAftersale> cursorFetch(  @Param("userId") Integer userId,  @Param("status") Short status,  @Param("from") LocalDateTime from,  @Param("to") LocalDateTime to);
+}
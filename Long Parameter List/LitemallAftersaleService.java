@@ -1,12 +1,21 @@
 @Service public class LitemallAftersaleService {
   @Resource private LitemallAftersaleMapper aftersaleMapper;
+  @Resource private AftersaleSnGenerator aftersaleSnGenerator;
+  @Resource private AftersaleCache aftersaleCache;
+  @Resource private AftersaleBatchMapper aftersaleBatchMapper;
+  @Resource private LitemallAftersaleCursorMapper aftersaleCursorMapper;
+  @Resource private AftersaleStatusCounters aftersaleStatusCounters;
+  @Resource private AftersaleStatMapper aftersaleStatMapper;
+  private static final int BATCH_SIZE=1000;
   public LitemallAftersale findById(  Integer id){
-    return aftersaleMapper.selectByPrimaryKey(id);
+    return aftersaleCache.getById(id,aftersaleMapper::selectByPrimaryKey);
   }
   public LitemallAftersale findById(  Integer userId,  Integer id){
-    LitemallAftersaleExample example=new LitemallAftersaleExample();
-    example.or().andIdEqualTo(id).andUserIdEqualTo(userId).andDeletedEqualTo(false);
-    return aftersaleMapper.selectOneByExample(example);
+    LitemallAftersale aftersale=findById(id);
+    if (aftersale == null || !Objects.equals(aftersale.getUserId(),userId) || Boolean.TRUE.equals(aftersale.getDeleted())) {
+      return null;
+    }
+    return aftersale;
   }
   public List<LitemallAftersale> queryList(  Integer userId,  Short status,  Integer page,  Integer limit,  String sort,  String order){
     LitemallAftersaleExample example=new LitemallAftersaleExample();
@@ -25,15 +34,117 @@
     PageHelper.startPage(page,limit);
     return aftersaleMapper.selectByExample(example);
   }
-  private String getRandomNum(  Integer num){
-    String base="0123456789";
-    Random random=new Random();
-    StringBuffer sb=new StringBuffer();
-    for (int i=0; i < num; i++) {
-      int number=random.nextInt(base.length());
-      sb.append(base.charAt(number));
+  /**
+ * Keyset variant of  {@link #queryList}: returns the rows after  {@code cursor} (the first page when it is null) without OFFSET and without a count query. Only orderings an index on (user_id, deleted, add_time, id) can serve are accepted: <code>add_time</code> (default) and <code>id</code>, ascending or descending.
+ */
+  public AftersaleSeekPage queryListAfter(  Integer userId,  Short status,  AftersaleSeekPage.Cursor cursor,  Integer limit,  String sort,  String order){
+    boolean byId="id".equals(sort);
+    if (!StringUtils.isEmpty(sort) && !byId && !"add_time".equals(sort)) {
+      throw new IllegalArgumentException("Keyset pagination supports sort by add_time or id, not " + sort);
+    }
+    boolean asc="asc".equalsIgnoreCase(order);
+    if (!StringUtils.isEmpty(order) && !asc && !"desc".equalsIgnoreCase(order)) {
+      throw new IllegalArgumentException("Unknown order " + order);
+    }
+    LitemallAftersaleExample example=new LitemallAftersaleExample();
+    if (cursor == null) {
+      seekCriteria(example,userId,status);
+    }
+ else if (byId) {
+      LitemallAftersaleExample.Criteria criteria=seekCriteria(example,userId,status);
+      if (asc) {
+        criteria.andIdGreaterThan(cursor.getId());
+      }
+ else {
+        criteria.andIdLessThan(cursor.getId());
+      }
+    }
+ else {
+      LitemallAftersaleExample.Criteria before=seekCriteria(example,userId,status);
+      LitemallAftersaleExample.Criteria tie=seekCriteria(example,userId,status).andAddTimeEqualTo(cursor.getAddTime());
+      if (asc) {
+        before.andAddTimeGreaterThan(cursor.getAddTime());
+        tie.andIdGreaterThan(cursor.getId());
+      }
+ else {
+        before.andAddTimeLessThan(cursor.getAddTime());
+        tie.andIdLessThan(cursor.getId());
+      }
+    }
+    LitemallAftersale.Column idColumn=LitemallAftersale.Column.id;
+    String idOrder=asc ? idColumn.asc() : idColumn.desc();
+    if (byId) {
+      example.setOrderByClause(idOrder);
+    }
+ else {
+      LitemallAftersale.Column timeColumn=LitemallAftersale.Column.addTime;
+      example.setOrderByClause((asc ? timeColumn.asc() : timeColumn.desc()) + ", " + idOrder);
+    }
+    PageHelper.startPage(1,limit,false);
+    List<LitemallAftersale> list=aftersaleMapper.selectByExample(example);
+    AftersaleSeekPage.Cursor next=list.size() < limit ? null : AftersaleSeekPage.Cursor.of(list.get(list.size() - 1));
+    return new AftersaleSeekPage(list,next);
+  }
+  private LitemallAftersaleExample.Criteria seekCriteria(  LitemallAftersaleExample example,  Integer userId,  Short status){
+    LitemallAftersaleExample.Criteria criteria=example.or();
+    criteria.andUserIdEqualTo(userId);
+    if (status != null) {
+      criteria.andStatusEqualTo(status);
+    }
+    criteria.andDeletedEqualTo(false);
+    return criteria;
+  }
+  /**
+ * Streams all matching aftersales ordered by id in constant memory, row by row. Any filter may be null; <code>to</code> is exclusive. <p> The returned stream holds an open database cursor: it must be consumed inside a transaction and closed, e.g. with try-with-resources. On MySQL that transaction cannot run any other statement until the stream is closed; see  {@link #streamAll(Integer,Short,LocalDateTime,LocalDateTime,boolean)} for callers that need to.
+ */
+  public Stream<LitemallAftersale> streamAll(  Integer userId,  Short status,  LocalDateTime from,  LocalDateTime to){
+    return streamAll(userId,status,from,to,false);
+  }
+  /**
+ * @param cursorFetch whether to read  {@value LitemallAftersaleCursorMapper#CURSOR_FETCH_SIZE} rows at a time from a server-side cursor instead of streaming row by row, which keeps the connection usable while the stream is open but needs <code>useCursorFetch=true</code> in the JDBC URL, see  {@link LitemallAftersaleCursorMapper}
+ */
+  public Stream<LitemallAftersale> streamAll(  Integer userId,  Short status,  LocalDateTime from,  LocalDateTime to,  boolean cursorFetch){
+    Cursor<LitemallAftersale> cursor=cursorFetch ? aftersaleCursorMapper.cursorFetch(userId,status,from,to) : aftersaleCursorMapper.cursor(userId,status,from,to);
+    return StreamSupport.stream(cursor.spliterator(),false).onClose(() -> {
+      try {
+        cursor.close();
+      }
+ catch (      IOException e) {
+        throw new UncheckedIOException(e);
+      }
     }
-    return sb.toString();
+);
+  }
+  /**
+ * Callback variant of  {@link #streamAll} that manages the transaction and the cursor itself. The rows are streamed one by one, so on MySQL  {@code consumer} must not query the database through this transaction.
+ * @return the number of exported rows
+ */
+  @Transactional(readOnly=true) public long exportAll(  Integer userId,  Short status,  LocalDateTime from,  LocalDateTime to,  Consumer<LitemallAftersale> consumer){
+    return exportAll(userId,status,from,to,false,consumer);
+  }
+  /**
+ * @param cursorFetch see  {@link #streamAll(Integer,Short,LocalDateTime,LocalDateTime,boolean)}
+ * @return the number of exported rows
+ */
+  @Transactional(readOnly=true) public long exportAll(  Integer userId,  Short status,  LocalDateTime from,  LocalDateTime to,  boolean cursorFetch,  Consumer<LitemallAftersale> consumer){
+    long count=0;
+    try (Stream<LitemallAftersale> stream=streamAll(userId,status,from,to,cursorFetch)){
+      Iterator<LitemallAftersale> it=stream.iterator();
+      while (it.hasNext()) {
+        consumer.accept(it.next());
+        count++;
+      }
+    }
+    return count;
+  }
+  /**
+ * Number of aftersales of a user in  {@code status}, served from maintained counters.
+ */
+  public int countByStatus(  Integer userId,  Short status){
+    return aftersaleStatusCounters.count(userId,status);
+  }
+  public Map<Short,Integer> countByStatus(  Integer userId){
+    return aftersaleStatusCounters.countByStatus(userId);
   }
   public int countByAftersaleSn(  Integer userId,  String aftersaleSn){
     LitemallAftersaleExample example=new LitemallAftersaleExample();
@@ -41,21 +152,68 @@
     return (int)aftersaleMapper.countByExample(example);
   }
   public String generateAftersaleSn(  Integer userId){
-    DateTimeFormatter df=DateTimeFormatter.ofPattern("yyyyMMdd");
-    String now=df.format(LocalDate.now());
-    String aftersaleSn=now + getRandomNum(6);
-    while (countByAftersaleSn(userId,aftersaleSn) != 0) {
-      aftersaleSn=now + getRandomNum(6);
-    }
-    return aftersaleSn;
+    return aftersaleSnGenerator.next();
   }
   public void add(  LitemallAftersale aftersale){
     aftersale.setAddTime(LocalDateTime.now());
     aftersale.setUpdateTime(LocalDateTime.now());
     aftersaleMapper.insertSelective(aftersale);
+    invalidate(() -> aftersaleCache.invalidateOrder(aftersale.getUserId(),aftersale.getOrderId()));
+    aftersaleStatusCounters.added(aftersale.getUserId(),aftersale.getStatus());
   }
-  public void deleteById(  Integer id){
+  /**
+ * Inserts all aftersales with one multi-row INSERT per  {@value #BATCH_SIZE} rows and one shared timestamp. Joins the caller's transaction, if any, so the rows commit or roll back with the rest of its work; the caches are invalidated once it has completed.
+ */
+  @Transactional public void addAll(  List<LitemallAftersale> aftersales){
+    if (aftersales.isEmpty()) {
+      return;
+    }
+    LocalDateTime now=LocalDateTime.now();
+    for (    LitemallAftersale aftersale : aftersales) {
+      aftersale.setAddTime(now);
+      aftersale.setUpdateTime(now);
+    }
+    for (int from=0; from < aftersales.size(); from+=BATCH_SIZE) {
+      aftersaleBatchMapper.insertAll(aftersales.subList(from,Math.min(from + BATCH_SIZE,aftersales.size())));
+    }
+    invalidate(() -> aftersales.forEach(aftersale -> aftersaleCache.invalidateOrder(aftersale.getUserId(),aftersale.getOrderId())));
+    for (    LitemallAftersale aftersale : aftersales) {
+      aftersaleStatusCounters.added(aftersale.getUserId(),aftersale.getStatus());
+    }
+  }
+  /**
+ * Sets the status of all given aftersales with one multi-row UPDATE per  {@value #BATCH_SIZE} ids, in one transaction and with one timestamp.
+ * @return the number of updated rows
+ */
+  @Transactional public int updateStatusByIds(  List<Integer> ids,  Short status){
+    LocalDateTime now=LocalDateTime.now();
+    int updated=0;
+    for (int from=0; from < ids.size(); from+=BATCH_SIZE) {
+      List<Integer> chunk=ids.subList(from,Math.min(from + BATCH_SIZE,ids.size()));
+      for (      LitemallAftersale current : aftersaleStatMapper.selectStatusForUpdate(chunk)) {
+        if (!Boolean.TRUE.equals(current.getDeleted())) {
+          aftersaleStatusCounters.moved(current.getUserId(),current.getStatus(),status);
+        }
+      }
+      LitemallAftersaleExample example=new LitemallAftersaleExample();
+      example.or().andIdIn(chunk).andDeletedEqualTo(false);
+      LitemallAftersale aftersale=new LitemallAftersale();
+      aftersale.setStatus(status);
+      aftersale.setUpdateTime(now);
+      updated+=aftersaleMapper.updateByExampleSelective(aftersale,example);
+    }
+    invalidate(() -> ids.forEach(aftersaleCache::invalidateId));
+    return updated;
+  }
+  @Transactional public void deleteById(  Integer id){
+    List<LitemallAftersale> deleted=aftersaleStatMapper.selectStatusForUpdate(Collections.singletonList(id));
     aftersaleMapper.logicalDeleteByPrimaryKey(id);
+    invalidate(() -> aftersaleCache.invalidateId(id));
+    for (    LitemallAftersale current : deleted) {
+      if (!Boolean.TRUE.equals(current.getDeleted())) {
+        aftersaleStatusCounters.removed(current.getUserId(),current.getStatus());
+      }
+    }
   }
   public void deleteByOrderId(  Integer userId,  Integer orderId){
     LitemallAftersaleExample example=new LitemallAftersaleExample();
@@ -63,15 +221,77 @@
     LitemallAftersale aftersale=new LitemallAftersale();
     aftersale.setUpdateTime(LocalDateTime.now());
     aftersale.setDeleted(true);
+    Integer id=aftersaleCache.getIdByOrder(userId,orderId,() -> aftersaleMapper.selectOneByExample(example));
     aftersaleMapper.updateByExampleSelective(aftersale,example);
+    invalidate(() -> {
+      if (id != null) {
+        aftersaleCache.invalidateId(id);
+      }
+      aftersaleCache.invalidateOrder(userId,orderId);
+    }
+);
+    aftersaleStatusCounters.invalidate(userId);
   }
-  public void updateById(  LitemallAftersale aftersale){
+  /**
+ * Updates the non-null fields of an aftersale. When the owner, the status or the deleted flag is set, the old ones are read from the row, not from the cache, and the counters move from the old owner and status, unless the row was deleted, to the new ones, unless it is deleted now.
+ */
+  @Transactional public void updateById(  LitemallAftersale aftersale){
     aftersale.setUpdateTime(LocalDateTime.now());
-    aftersaleMapper.updateByPrimaryKeySelective(aftersale);
+    boolean counted=aftersale.getUserId() != null || aftersale.getStatus() != null || aftersale.getDeleted() != null;
+    List<LitemallAftersale> current=counted ? aftersaleStatMapper.selectStatusForUpdate(Collections.singletonList(aftersale.getId())) : Collections.emptyList();
+    Integer id=aftersale.getId();
+    Integer orderUserId=aftersale.getUserId();
+    Integer orderId=aftersale.getOrderId();
+    try {
+      aftersaleMapper.updateByPrimaryKeySelective(aftersale);
+    }
+ finally {
+      invalidate(() -> {
+        aftersaleCache.invalidateId(id);
+        if (orderUserId != null && orderId != null) {
+          aftersaleCache.invalidateOrder(orderUserId,orderId);
+        }
+      }
+);
+    }
+    for (    LitemallAftersale row : current) {
+      boolean wasCounted=!Boolean.TRUE.equals(row.getDeleted());
+      boolean isCounted=aftersale.getDeleted() != null ? !aftersale.getDeleted() : wasCounted;
+      Integer userId=aftersale.getUserId() != null ? aftersale.getUserId() : row.getUserId();
+      Short status=aftersale.getStatus() != null ? aftersale.getStatus() : row.getStatus();
+      if (wasCounted && isCounted && userId.equals(row.getUserId())) {
+        aftersaleStatusCounters.moved(userId,row.getStatus(),status);
+        continue;
+      }
+      if (wasCounted) {
+        aftersaleStatusCounters.removed(row.getUserId(),row.getStatus());
+      }
+      if (isCounted) {
+        aftersaleStatusCounters.added(userId,status);
+      }
+    }
   }
   public LitemallAftersale findByOrderId(  Integer userId,  Integer orderId){
-    LitemallAftersaleExample example=new LitemallAftersaleExample();
-    example.or().andOrderIdEqualTo(orderId).andUserIdEqualTo(userId).andDeletedEqualTo(false);
-    return aftersaleMapper.selectOneByExample(example);
+    Integer id=aftersaleCache.getIdByOrder(userId,orderId,() -> {
+      LitemallAftersaleExample example=new LitemallAftersaleExample();
+      example.or().andOrderIdEqualTo(orderId).andUserIdEqualTo(userId).andDeletedEqualTo(false);
+      return aftersaleMapper.selectOneByExample(example);
+    }
+);
+    return id == null ? null : findById(userId,id);
+  }
+  /**
+ * Runs a cache invalidation now, and again once the current transaction, if any, has completed: until then another transaction may load and cache the old row, and this one may cache a row that is then rolled back.
+ */
+  private static void invalidate(  Runnable invalidation){
+    invalidation.run();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter(){
+        @Override public void afterCompletion(        int status){
+          invalidation.run();
+        }
+      }
+);
+    }
   }
 }
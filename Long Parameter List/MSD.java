@@ -0,0 +1,80 @@
+/**
+ * The  {@code MSD} class provides static methods for sorting an array of strings using <em>MSD radix sort</em> on extended ASCII characters. Strings are distributed by their character at position <em>d</em> with key-indexed counting and each group is sorted recursively from position <em>d</em>+1, so a common prefix is read once per group instead of once per compare. Subarrays of at most  {@value #CUTOFF} strings use insertion sort starting at position <em>d</em>. <p> If a string contains a character outside extended ASCII, the array is sorted with  {@link Quick3string} instead. Either way the result is in  {@link String#compareTo} order. <p> For additional documentation, see <a href="https://algs4.cs.princeton.edu/51radix">Section 5.1</a> of <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ */
+public class MSD {
+  private static final int BITS_PER_BYTE=8;
+  private static final int R=1 << BITS_PER_BYTE;
+  private static final int CUTOFF=15;
+  private MSD(){
+  }
+  /**
+ * Rearranges the array of strings in ascending order.
+ * @param a the array to be sorted
+ */
+  public static void sort(  String[] a){
+    if (!isExtendedAscii(a)) {
+      Quick3string.sort(a);
+      return;
+    }
+    int n=a.length;
+    String[] aux=new String[n];
+    sort(a,0,n - 1,0,aux);
+  }
+  private static boolean isExtendedAscii(  String[] a){
+    for (int i=0; i < a.length; i++) {
+      String s=a[i];
+      for (int j=0; j < s.length(); j++) {
+        if (s.charAt(j) >= R)         return false;
+      }
+    }
+    return true;
+  }
+  private static int charAt(  String s,  int d){
+    if (d == s.length())     return -1;
+    return s.charAt(d);
+  }
+  private static void sort(  String[] a,  int lo,  int hi,  int d,  String[] aux){
+    if (hi <= lo + CUTOFF) {
+      insertion(a,lo,hi,d);
+      return;
+    }
+    int[] count=new int[R + 2];
+    for (int i=lo; i <= hi; i++) {
+      int c=charAt(a[i],d);
+      count[c + 2]++;
+    }
+    for (int r=0; r < R + 1; r++)     count[r + 1]+=count[r];
+    for (int i=lo; i <= hi; i++) {
+      int c=charAt(a[i],d);
+      aux[count[c + 1]++]=a[i];
+    }
+    System.arraycopy(aux,0,a,lo,hi - lo + 1);
+    for (int r=0; r < R; r++)     sort(a,lo + count[r],lo + count[r + 1] - 1,d + 1,aux);
+  }
+  private static void insertion(  String[] a,  int lo,  int hi,  int d){
+    for (int i=lo; i <= hi; i++)     for (int j=i; j > lo && less(a[j],a[j - 1],d); j--)     exch(a,j,j - 1);
+  }
+  private static void exch(  String[] a,  int i,  int j){
+    if (SortProbe.ENABLED)     SortProbe.exchange();
+    String temp=a[i];
+    a[i]=a[j];
+    a[j]=temp;
+  }
+  private static boolean less(  String v,  String w,  int d){
+    if (SortProbe.ENABLED)     SortProbe.compare();
+    for (int i=d; i < Math.min(v.length(),w.length()); i++) {
+      if (v.charAt(i) < w.charAt(i))       return true;
+      if (v.charAt(i) > w.charAt(i))       return false;
+    }
+    return v.length() < w.length();
+  }
+  /**
+ * Reads in a sequence of strings from standard input; MSD radix sorts them; and prints them to standard output in ascending order.
+ * @param args the command-line arguments
+ */
+  public static void main(  String[] args){
+    String[] a=StdIn.readAllStrings();
+    sort(a);
+    for (int i=0; i < a.length; i++)     StdOut.println(a[i]);
+  }
+}
@@ -3,6 +3,60 @@ public class MiniDnsResolver extends DNSResolver implements SmackInitializer {
     private static final MiniDnsResolver INSTANCE = new MiniDnsResolver();
     private static final ResolverApi DNSSEC_RESOLVER = DnssecResolverApi.INSTANCE;
     private static final ResolverApi NON_DNSSEC_RESOLVER = ResolverApi.INSTANCE;
+    private static final int MAX_CNAME_HOPS = 8;
+
+    /**
+     * Runs the AAAA half of host address lookups. When all threads are busy the query runs on the calling thread instead,
+     * before its A query.
+     */
+    private static final ExecutorService LOOKUP_EXECUTOR = new ThreadPoolExecutor(0, 32, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "MiniDnsResolver Lookup");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /**
+     * Runs the blocking lookups behind the asynchronous ones. When all threads are busy the lookups queue up rather than
+     * run on the calling thread, which may be the selector thread of the asynchronous client.
+     */
+    private static final ThreadPoolExecutor FALLBACK_EXECUTOR = new ThreadPoolExecutor(8, 8, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "MiniDnsResolver Fallback");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        FALLBACK_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    // Refreshes are an optimization: when all prefetch threads are busy, a refresh is dropped rather than run by the caller.
+    private static final ExecutorService PREFETCH_EXECUTOR = new ThreadPoolExecutor(0, 4, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "MiniDnsResolver Prefetch");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    private static final DnsResultCache CACHE = new DnsResultCache(DnsResultCache.DEFAULT_MAX_SIZE, PREFETCH_EXECUTOR);
+
+    /**
+     * Creates the asynchronous client, and its selector thread, on first use; {@code null} if it could not be created.
+     */
+    private static final class AsyncClientHolder {
+        private static final AsyncDnsClient CLIENT = create();
+
+        private static AsyncDnsClient create() {
+            try {
+                return AsyncDnsClient.create();
+            } catch (IOException e) {
+                Logger.getLogger(MiniDnsResolver.class.getName()).log(Level.WARNING,
+                        "Asynchronous DNS lookups unavailable, falling back to blocking lookups", e);
+                return null;
+            }
+        }
+    }
 
     public static DNSResolver getInstance() { return INSTANCE; }
 
@@ -14,13 +68,9 @@ public class MiniDnsResolver extends DNSResolver implements SmackInitializer {
                                          DnssecMode dnssecMode) {
         ResolverApi resolver = getResolver(dnssecMode);
         try {
-            SrvResolverResult res = resolver.resolveSrv(name);
-            if (res.getResolutionUnsuccessfulException() != null) {
-                addFailure(failures, name, res.getResolutionUnsuccessfulException());
-                return null;
-            }
-            if (shouldAbortIfNotAuthentic(name, dnssecMode, res, failures)) return null;
-            return res.getAnswers();
+            SrvResolverResult res = CACHE.resolve(resolver == DNSSEC_RESOLVER, SRV.class, name,
+                    () -> resolver.resolveSrv(name));
+            return srvRecordsOf(name, res, failures, dnssecMode);
         } catch (IOException e) {
             addFailure(failures, name, e);
             return null;
@@ -34,24 +84,122 @@ public class MiniDnsResolver extends DNSResolver implements SmackInitializer {
         ResolverApi resolver = getResolver(dnssecMode);
         ResolverResult<A> aRes;
         ResolverResult<AAAA> aaaaRes;
+        // The AAAA query runs on the lookup executor while the A query runs here, so the lookup takes one round trip.
+        boolean dnssec = resolver == DNSSEC_RESOLVER;
+        Future<ResolverResult<AAAA>> aaaaFuture = LOOKUP_EXECUTOR.submit(
+                () -> CACHE.resolve(dnssec, AAAA.class, name, () -> resolver.resolve(name, AAAA.class)));
         try {
-            aRes = resolver.resolve(name, A.class);
-            aaaaRes = resolver.resolve(name, AAAA.class);
+            aRes = CACHE.resolve(dnssec, A.class, name, () -> resolver.resolve(name, A.class));
+            aaaaRes = await(aaaaFuture);
         } catch (IOException e) {
+            // Not interrupted: the query may be shared with other lookups through the cache.
+            aaaaFuture.cancel(false);
             addFailure(failures, name, e);
             return null;
         }
+        return hostAddressesOf(name, aRes, aaaaRes, failures, dnssecMode);
+    }
 
-        if (!aRes.wasSuccessful() && !aaaaRes.wasSuccessful()) {
-            addFailure(failures, name, getExceptionFrom(aRes));
-            addFailure(failures, name, getExceptionFrom(aaaaRes));
-            return null;
+    /**
+     * Asynchronous variant of {@link #lookupSrvRecords0}, see {@link #lookupHostAddressAsync}.
+     */
+    public CompletableFuture<Set<SRV>> lookupSrvRecordsAsync(DnsName name,
+                                                             List<RemoteConnectionEndpointLookupFailure> failures,
+                                                             DnssecMode dnssecMode) {
+        AsyncDnsClient client = AsyncClientHolder.CLIENT;
+        if (client == null || dnssecMode != DnssecMode.disabled) {
+            return blocking(() -> lookupSrvRecords0(name, failures, dnssecMode));
         }
-        if (shouldAbortIfNotAuthentic(name, dnssecMode, aRes, failures)
-                || shouldAbortIfNotAuthentic(name, dnssecMode, aaaaRes, failures)) {
-            return null;
+        try {
+            // Read once: the entry may expire at any time, and a miss must not query on the calling thread.
+            SrvResolverResult cached = CACHE.getIfPresent(false, SRV.class, name);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(srvRecordsOf(name, cached, failures, dnssecMode));
+            }
+        } catch (IOException e) {
+            addFailure(failures, name, e);
+            return CompletableFuture.completedFuture(null);
         }
-        return buildInetList(name, aRes, aaaaRes);
+        CompletableFuture<DnsMessage> srvFuture = CACHE.resolveAsync(Record.TYPE.SRV, name,
+                () -> client.query(name, Record.TYPE.SRV));
+        return srvFuture.handle((response, throwable) -> {
+            if (throwable != null) {
+                addFailure(failures, name, asException(throwable));
+                return CompletableFuture.<Set<SRV>>completedFuture(null);
+            }
+            if (response.truncated) {
+                return blocking(() -> lookupSrvRecords0(name, failures, dnssecMode));
+            }
+            if (response.responseCode != DnsMessage.RESPONSE_CODE.NO_ERROR) {
+                addFailure(failures, name, new ResolutionUnsuccessfulException(response.getQuestion(), response.responseCode));
+                return CompletableFuture.<Set<SRV>>completedFuture(null);
+            }
+            return CompletableFuture.completedFuture(answersOf(response, name, SRV.class));
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * Asynchronous variant of {@link #lookupHostAddress0}, which does not park a thread while the queries are in flight.
+     * <p>
+     * With DNSSEC disabled, the A and AAAA queries are sent on a shared {@link AsyncDnsClient}, whose single selector thread
+     * serves all concurrent lookups, with timeouts, retries and server rotation. Its responses are cached, and concurrent
+     * lookups of a name share its queries, see {@link DnsResultCache#resolveAsync}. Results still cached by the blocking
+     * lookups are used as they are. With DNSSEC, for truncated responses, and if no asynchronous client could be created,
+     * the blocking lookup runs on the fallback executor instead, never on the selector or calling thread. {@code failures} is filled in before the future completes,
+     * as the blocking lookup does before it returns.
+     * <p>
+     * The future may complete on the selector thread: attach dependent actions that block with an executor.
+     */
+    public CompletableFuture<List<InetAddress>> lookupHostAddressAsync(DnsName name,
+                                                                       List<RemoteConnectionEndpointLookupFailure> failures,
+                                                                       DnssecMode dnssecMode) {
+        AsyncDnsClient client = AsyncClientHolder.CLIENT;
+        if (client == null || dnssecMode != DnssecMode.disabled) {
+            return blocking(() -> lookupHostAddress0(name, failures, dnssecMode));
+        }
+        try {
+            // Read once: the entries may expire at any time, and a miss must not query on the calling thread.
+            ResolverResult<A> cachedA = CACHE.getIfPresent(false, A.class, name);
+            ResolverResult<AAAA> cachedAaaa = CACHE.getIfPresent(false, AAAA.class, name);
+            if (cachedA != null && cachedAaaa != null) {
+                return CompletableFuture.completedFuture(hostAddressesOf(name, cachedA, cachedAaaa, failures, dnssecMode));
+            }
+        } catch (IOException e) {
+            addFailure(failures, name, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<DnsMessage> aFuture = CACHE.resolveAsync(Record.TYPE.A, name,
+                () -> client.query(name, Record.TYPE.A));
+        CompletableFuture<DnsMessage> aaaaFuture = CACHE.resolveAsync(Record.TYPE.AAAA, name,
+                () -> client.query(name, Record.TYPE.AAAA));
+        return CompletableFuture.allOf(aFuture, aaaaFuture).handle((ignored, throwable) -> {
+            if (throwable != null) {
+                addFailure(failures, name, asException(throwable));
+                return CompletableFuture.<List<InetAddress>>completedFuture(null);
+            }
+            DnsMessage aRes = aFuture.join();
+            DnsMessage aaaaRes = aaaaFuture.join();
+            if (aRes.truncated || aaaaRes.truncated) {
+                return blocking(() -> lookupHostAddress0(name, failures, dnssecMode));
+            }
+            boolean aSuccessful = aRes.responseCode == DnsMessage.RESPONSE_CODE.NO_ERROR;
+            boolean aaaaSuccessful = aaaaRes.responseCode == DnsMessage.RESPONSE_CODE.NO_ERROR;
+            if (!aSuccessful && !aaaaSuccessful) {
+                addFailure(failures, name, new ResolutionUnsuccessfulException(aRes.getQuestion(), aRes.responseCode));
+                addFailure(failures, name, new ResolutionUnsuccessfulException(aaaaRes.getQuestion(), aaaaRes.responseCode));
+                return CompletableFuture.<List<InetAddress>>completedFuture(null);
+            }
+            return CompletableFuture.completedFuture(buildInetList(name,
+                    aSuccessful ? answersOf(aRes, name, A.class) : Collections.<A>emptySet(),
+                    aaaaSuccessful ? answersOf(aaaaRes, name, AAAA.class) : Collections.<AAAA>emptySet()));
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * Drops all cached DNS results, e.g. after a network change.
+     */
+    public static void clearCache() {
+        CACHE.clear();
     }
 
     public static void setup() {
@@ -77,19 +225,90 @@ public class MiniDnsResolver extends DNSResolver implements SmackInitializer {
         failures.add(new RemoteConnectionEndpointLookupFailure.DnsLookupFailure(name, e));
     }
 
+    private static Set<SRV> srvRecordsOf(DnsName name,
+                                         SrvResolverResult res,
+                                         List<RemoteConnectionEndpointLookupFailure> failures,
+                                         DnssecMode dnssecMode) {
+        if (res.getResolutionUnsuccessfulException() != null) {
+            addFailure(failures, name, res.getResolutionUnsuccessfulException());
+            return null;
+        }
+        if (shouldAbortIfNotAuthentic(name, dnssecMode, res, failures)) return null;
+        return res.getAnswers();
+    }
+
+    private static List<InetAddress> hostAddressesOf(DnsName name,
+                                                     ResolverResult<A> aRes,
+                                                     ResolverResult<AAAA> aaaaRes,
+                                                     List<RemoteConnectionEndpointLookupFailure> failures,
+                                                     DnssecMode dnssecMode) {
+        if (!aRes.wasSuccessful() && !aaaaRes.wasSuccessful()) {
+            addFailure(failures, name, getExceptionFrom(aRes));
+            addFailure(failures, name, getExceptionFrom(aaaaRes));
+            return null;
+        }
+        if (shouldAbortIfNotAuthentic(name, dnssecMode, aRes, failures)
+                || shouldAbortIfNotAuthentic(name, dnssecMode, aaaaRes, failures)) {
+            return null;
+        }
+        return buildInetList(name, aRes, aaaaRes);
+    }
+
     private static List<InetAddress> buildInetList(DnsName name,
                                                    ResolverResult<A> aRes,
                                                    ResolverResult<AAAA> aaaaRes) {
+        return buildInetList(name,
+                aRes.wasSuccessful() ? aRes.getAnswers() : Collections.<A>emptySet(),
+                aaaaRes.wasSuccessful() ? aaaaRes.getAnswers() : Collections.<AAAA>emptySet());
+    }
+
+    private static List<InetAddress> buildInetList(DnsName name,
+                                                   Collection<A> aRecords,
+                                                   Collection<AAAA> aaaaRecords) {
         List<InetAddress> list = new ArrayList<>();
-        for (A a : aRes.wasSuccessful() ? aRes.getAnswers() : Collections.emptySet()) {
+        for (A a : aRecords) {
             try { list.add(InetAddress.getByAddress(a.getIp())); } catch (UnknownHostException ignore) { }
         }
-        for (AAAA aaaa : aaaaRes.wasSuccessful() ? aaaaRes.getAnswers() : Collections.emptySet()) {
+        for (AAAA aaaa : aaaaRecords) {
             try { list.add(InetAddress.getByAddress(name.ace, aaaa.getIp())); } catch (UnknownHostException ignore) { }
         }
         return list;
     }
 
+    /**
+     * Returns the answers of a type for {@code name}, following the CNAME records of the response, as the blocking
+     * resolver does. Records owned by any other name are ignored.
+     */
+    private static <D extends Data> Set<D> answersOf(DnsMessage response, DnsName name, Class<D> type) {
+        DnsName owner = name;
+        for (int hops = 0; hops <= MAX_CNAME_HOPS; hops++) {
+            Set<D> answers = new LinkedHashSet<>();
+            DnsName alias = null;
+            for (Record<? extends Data> record : response.answerSection) {
+                if (!record.name.equals(owner)) continue;
+                if (type.isInstance(record.payloadData)) {
+                    answers.add(type.cast(record.payloadData));
+                } else if (record.payloadData instanceof CNAME) {
+                    alias = ((CNAME) record.payloadData).target;
+                }
+            }
+            if (!answers.isEmpty() || alias == null) return answers;
+            owner = alias;
+        }
+        return Collections.emptySet();
+    }
+
+    private static <T> CompletableFuture<T> blocking(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, FALLBACK_EXECUTOR);
+    }
+
+    private static Exception asException(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof Error) throw (Error) cause;
+        return (Exception) cause;
+    }
+
     private static boolean shouldAbortIfNotAuthentic(DnsName name,
                                                      DnssecMode dnssecMode,
                                                      ResolverResult<?> result,
@@ -111,6 +330,22 @@ public class MiniDnsResolver extends DNSResolver implements SmackInitializer {
         return false;
     }
 
+    private static <D extends Data> ResolverResult<D> await(Future<ResolverResult<D>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new InterruptedIOException("Interrupted while waiting for DNS lookup");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
     private static ResolutionUnsuccessfulException getExceptionFrom(ResolverResult<?> res) {
         return new ResolutionUnsuccessfulException(res.getQuestion(), res.getResponseCode());
     }
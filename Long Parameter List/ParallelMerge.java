@@ -0,0 +1,182 @@
+/**
+ * The  {@code ParallelMerge} class provides static methods for sorting an array using a parallel, <em>stable</em> top-down <em>mergesort</em> on the common fork/join pool. Both halves are sorted in parallel, and large merges are split in parallel too: the median of the larger run is located in the other run by binary search, which keeps equal keys in their original order. Subarrays of at most  {@value #INSERTION_CUTOFF} elements use insertion sort. <p> One auxiliary array of length <em>n</em> is allocated per call and reused at every level, the roles of the input and the auxiliary array alternating between levels. Arrays shorter than  {@value #PARALLEL_CUTOFF} are sorted sequentially.
+ */
+public class ParallelMerge {
+  private static final int INSERTION_CUTOFF=32;
+  private static final int PARALLEL_CUTOFF=1 << 13;
+  private ParallelMerge(){
+  }
+  /**
+ * Rearranges the array in ascending order, using the natural order. The sort is stable.
+ * @param a the array to be sorted
+ */
+  public static void sort(  Comparable[] a){
+    sort(a,Comparator.naturalOrder());
+  }
+  /**
+ * Rearranges the array in ascending order, using a comparator. The sort is stable.
+ * @param a the array
+ * @param comparator the comparator specifying the order
+ */
+  public static void sort(  Object[] a,  Comparator comparator){
+    Object[] aux=a.clone();
+    if (a.length < PARALLEL_CUTOFF) {
+      mergesort(aux,a,comparator,0,a.length - 1);
+    }
+ else {
+      ForkJoinPool.commonPool().invoke(new SortTask(aux,a,comparator,0,a.length - 1));
+    }
+    assert isSorted(a,comparator);
+  }
+  /**
+ * Sorts src[lo..hi] into dst[lo..hi]; both hold the same elements on entry.
+ */
+  private static final class SortTask extends RecursiveAction {
+    private final Object[] src;
+    private final Object[] dst;
+    private final Comparator comparator;
+    private final int lo;
+    private final int hi;
+    SortTask(    Object[] src,    Object[] dst,    Comparator comparator,    int lo,    int hi){
+      this.src=src;
+      this.dst=dst;
+      this.comparator=comparator;
+      this.lo=lo;
+      this.hi=hi;
+    }
+    @Override protected void compute(){
+      if (hi - lo < PARALLEL_CUTOFF) {
+        mergesort(src,dst,comparator,lo,hi);
+        return;
+      }
+      int mid=lo + (hi - lo) / 2;
+      invokeAll(new SortTask(dst,src,comparator,lo,mid),new SortTask(dst,src,comparator,mid + 1,hi));
+      if (!less(comparator,src[mid + 1],src[mid])) {
+        System.arraycopy(src,lo,dst,lo,hi - lo + 1);
+        return;
+      }
+      new MergeTask(src,dst,comparator,lo,mid,mid + 1,hi,lo).compute();
+    }
+  }
+  /**
+ * Merges the sorted runs src[lo1..hi1] and src[lo2..hi2], with the first run preceding the second in the input, into dst starting at k.
+ */
+  private static final class MergeTask extends RecursiveAction {
+    private final Object[] src;
+    private final Object[] dst;
+    private final Comparator comparator;
+    private final int lo1, hi1, lo2, hi2, k;
+    MergeTask(    Object[] src,    Object[] dst,    Comparator comparator,    int lo1,    int hi1,    int lo2,    int hi2,    int k){
+      this.src=src;
+      this.dst=dst;
+      this.comparator=comparator;
+      this.lo1=lo1;
+      this.hi1=hi1;
+      this.lo2=lo2;
+      this.hi2=hi2;
+      this.k=k;
+    }
+    @Override protected void compute(){
+      int n1=hi1 - lo1 + 1;
+      int n2=hi2 - lo2 + 1;
+      if (n1 + n2 < PARALLEL_CUTOFF || n1 == 0 || n2 == 0) {
+        merge(src,dst,comparator,lo1,hi1,lo2,hi2,k);
+        return;
+      }
+      int m1, m2;
+      if (n1 >= n2) {
+        m1=lo1 + n1 / 2;
+        m2=lowerBound(src,comparator,lo2,hi2,src[m1]);
+      }
+ else {
+        m2=lo2 + n2 / 2;
+        m1=upperBound(src,comparator,lo1,hi1,src[m2]);
+      }
+      int k2=k + (m1 - lo1) + (m2 - lo2);
+      invokeAll(new MergeTask(src,dst,comparator,lo1,m1 - 1,lo2,m2 - 1,k),new MergeTask(src,dst,comparator,m1,hi1,m2,hi2,k2));
+    }
+  }
+  /**
+ * Returns the first index in a[lo..hi] whose key is not less than key, hi + 1 if none.
+ */
+  private static int lowerBound(  Object[] a,  Comparator comparator,  int lo,  int hi,  Object key){
+    while (lo <= hi) {
+      int mid=lo + (hi - lo) / 2;
+      if (less(comparator,a[mid],key))       lo=mid + 1;
+ else       hi=mid - 1;
+    }
+    return lo;
+  }
+  /**
+ * Returns the first index in a[lo..hi] whose key is greater than key, hi + 1 if none.
+ */
+  private static int upperBound(  Object[] a,  Comparator comparator,  int lo,  int hi,  Object key){
+    while (lo <= hi) {
+      int mid=lo + (hi - lo) / 2;
+      if (less(comparator,key,a[mid]))       hi=mid - 1;
+ else       lo=mid + 1;
+    }
+    return lo;
+  }
+  private static void merge(  Object[] src,  Object[] dst,  Comparator comparator,  int lo1,  int hi1,  int lo2,  int hi2,  int k){
+    int i=lo1, j=lo2;
+    while (i <= hi1 && j <= hi2) {
+      if (less(comparator,src[j],src[i]))       dst[k++]=src[j++];
+ else       dst[k++]=src[i++];
+    }
+    if (i <= hi1)     System.arraycopy(src,i,dst,k,hi1 - i + 1);
+ else     if (j <= hi2)     System.arraycopy(src,j,dst,k,hi2 - j + 1);
+  }
+  private static void mergesort(  Object[] src,  Object[] dst,  Comparator comparator,  int lo,  int hi){
+    if (hi - lo < INSERTION_CUTOFF) {
+      insertion(dst,comparator,lo,hi);
+      return;
+    }
+    int mid=lo + (hi - lo) / 2;
+    mergesort(dst,src,comparator,lo,mid);
+    mergesort(dst,src,comparator,mid + 1,hi);
+    if (!less(comparator,src[mid + 1],src[mid])) {
+      System.arraycopy(src,lo,dst,lo,hi - lo + 1);
+      return;
+    }
+    merge(src,dst,comparator,lo,mid,mid + 1,hi,lo);
+  }
+  private static void insertion(  Object[] a,  Comparator comparator,  int lo,  int hi){
+    for (int i=lo + 1; i <= hi; i++) {
+      for (int j=i; j > lo && less(comparator,a[j],a[j - 1]); j--) {
+        exch(a,j,j - 1);
+      }
+    }
+  }
+  /**
+ * Helper sorting functions.
+ */
+  private static boolean less(  Comparator comparator,  Object v,  Object w){
+    if (SortProbe.ENABLED)     SortProbe.compare();
+    return comparator.compare(v,w) < 0;
+  }
+  private static void exch(  Object[] a,  int i,  int j){
+    if (SortProbe.ENABLED)     SortProbe.exchange();
+    Object swap=a[i];
+    a[i]=a[j];
+    a[j]=swap;
+  }
+  /**
+ * Check if array is sorted - useful for debugging.
+ */
+  private static boolean isSorted(  Object[] a,  Comparator comparator){
+    for (int i=1; i < a.length; i++)     if (less(comparator,a[i],a[i - 1]))     return false;
+    return true;
+  }
+  /**
+ * Reads in a sequence of strings from standard input; sorts them in parallel; and prints them to standard output in ascending order.
+ * @param args the command-line arguments
+ */
+  public static void main(  String[] args){
+    String[] a=StdIn.readAllStrings();
+    ParallelMerge.sort(a);
+    for (int i=0; i < a.length; i++) {
+      StdOut.println(a[i]);
+    }
+  }
+}
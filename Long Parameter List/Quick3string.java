@@ -0,0 +1,63 @@
+/**
+ * The  {@code Quick3string} class provides static methods for sorting an array of strings using <em>3-way radix quicksort</em>. Each partitioning step compares only the character at position <em>d</em>: strings with a smaller or larger character are partitioned away, and strings sharing it are sorted from position <em>d</em>+1. It works for any <code>char</code> and needs no count arrays, so it suits inputs with long common prefixes and large alphabets. Subarrays of at most  {@value #CUTOFF} strings use insertion sort starting at position <em>d</em>. <p> The result is in  {@link String#compareTo} order. This sort is not stable, which is not observable for strings. <p> For additional documentation, see <a href="https://algs4.cs.princeton.edu/51radix">Section 5.1</a> of <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
+ */
+public class Quick3string {
+  private static final int CUTOFF=15;
+  private Quick3string(){
+  }
+  /**
+ * Rearranges the array of strings in ascending order.
+ * @param a the array to be sorted
+ */
+  public static void sort(  String[] a){
+    StdRandom.shuffle(a);
+    sort(a,0,a.length - 1,0);
+  }
+  private static int charAt(  String s,  int d){
+    if (d == s.length())     return -1;
+    return s.charAt(d);
+  }
+  private static void sort(  String[] a,  int lo,  int hi,  int d){
+    while (hi > lo + CUTOFF) {
+      int lt=lo, gt=hi;
+      int v=charAt(a[lo],d);
+      int i=lo + 1;
+      while (i <= gt) {
+        int t=charAt(a[i],d);
+        if (t < v)         exch(a,lt++,i++);
+ else         if (t > v)         exch(a,i,gt--);
+ else         i++;
+      }
+      sort(a,lo,lt - 1,d);
+      if (v >= 0)       sort(a,lt,gt,d + 1);
+      lo=gt + 1;
+    }
+    insertion(a,lo,hi,d);
+  }
+  private static void insertion(  String[] a,  int lo,  int hi,  int d){
+    for (int i=lo; i <= hi; i++)     for (int j=i; j > lo && less(a[j],a[j - 1],d); j--)     exch(a,j,j - 1);
+  }
+  private static void exch(  String[] a,  int i,  int j){
+    if (SortProbe.ENABLED)     SortProbe.exchange();
+    String temp=a[i];
+    a[i]=a[j];
+    a[j]=temp;
+  }
+  private static boolean less(  String v,  String w,  int d){
+    if (SortProbe.ENABLED)     SortProbe.compare();
+    for (int i=d; i < Math.min(v.length(),w.length()); i++) {
+      if (v.charAt(i) < w.charAt(i))       return true;
+      if (v.charAt(i) > w.charAt(i))       return false;
+    }
+    return v.length() < w.length();
+  }
+  /**
+ * Reads in a sequence of strings from standard input; 3-way radix quicksorts them; and prints them to standard output in ascending order.
+ * @param args the command-line arguments
+ */
+  public static void main(  String[] args){
+    String[] a=StdIn.readAllStrings();
+    sort(a);
+    for (int i=0; i < a.length; i++)     StdOut.println(a[i]);
+  }
+}
@@ -0,0 +1,188 @@
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Deterministic discrete-event simulation of a reconnect storm.
+ * <p>
+ * {@code clients} connections drop at time zero and reconnect using one {@link Delay} strategy. The server is unavailable for
+ * {@code outage}, then accepts at most {@code acceptsPerWindow} connection attempts per {@code window}; attempts beyond that
+ * are rejected and back off again. A strategy creates each client's delay from the {@link Random} of the run, seeded with
+ * {@code seed}; the jitter strategies of {@link #defaultStrategies()} draw from it rather than from
+ * {@link java.util.concurrent.ThreadLocalRandom}, so a run with the same seed produces the same report.
+ */
+public final class ReconnectStormSimulator {
+
+    private final int clients;
+    private final Duration outage;
+    private final Duration window;
+    private final int acceptsPerWindow;
+    private final long seed;
+
+    public ReconnectStormSimulator(int clients, Duration outage, Duration window, int acceptsPerWindow, long seed) {
+        LettuceAssert.isTrue(clients > 0, "Clients must be greater than 0");
+        LettuceAssert.notNull(outage, "Outage must not be null");
+        LettuceAssert.notNull(window, "Window must not be null");
+        LettuceAssert.isTrue(window.toNanos() > 0, "Window must be greater than 0");
+        LettuceAssert.isTrue(acceptsPerWindow > 0, "AcceptsPerWindow must be greater than 0");
+        this.clients = clients;
+        this.outage = outage;
+        this.window = window;
+        this.acceptsPerWindow = acceptsPerWindow;
+        this.seed = seed;
+    }
+
+    /**
+     * Strategies compared by {@link #main(String[])}: one {@link Delay} per client, created from the run's {@link Random}.
+     * The jitter strategies are those of {@link Delay#equalJitter}, {@link Delay#fullJitter} and
+     * {@link Delay#decorrelatedJitter}, with the random part drawn from that {@link Random}.
+     */
+    public static Map<String, Function<Random, Delay>> defaultStrategies() {
+        Delay.JitterOpts jitter = new Delay.JitterOpts(Duration.ZERO, Duration.ofSeconds(30), 100, TimeUnit.MILLISECONDS);
+        Delay.ExponentialOpts exponential = new Delay.ExponentialOpts(Duration.ZERO, Duration.ofSeconds(30), 2,
+                TimeUnit.MILLISECONDS);
+
+        Map<String, Function<Random, Delay>> strategies = new LinkedHashMap<>();
+        Delay sharedExponential = Delay.exponential();
+        strategies.put("exponential", random -> sharedExponential);
+        strategies.put("equalJitter", random -> Delay.equalJitter(jitter, random));
+        strategies.put("fullJitter", random -> Delay.fullJitter(jitter, random));
+        strategies.put("decorrelatedJitter", random -> Delay.decorrelatedJitter(jitter, random));
+        strategies.put("adaptive", random -> Delay.adaptive(exponential));
+        return strategies;
+    }
+
+    /**
+     * Runs a strategy whose delays do not draw random numbers, or do not need to be reproducible.
+     */
+    public Report run(Supplier<Delay> strategy) {
+        return run(random -> strategy.get());
+    }
+
+    public Report run(Function<Random, Delay> strategy) {
+        return simulate(strategy, new Random(seed));
+    }
+
+    private Report simulate(Function<Random, Delay> strategy, Random random) {
+        long windowNanos = window.toNanos();
+        long outageNanos = outage.toNanos();
+
+        // every client notices the disconnect at a slightly different time within the first window
+        Random arrival = new Random(seed ^ 0x5DEECE66DL);
+        PriorityQueue<Attempt> queue = new PriorityQueue<>(clients);
+        Delay[] delays = new Delay[clients];
+        for (int i = 0; i < clients; i++) {
+            delays[i] = strategy.apply(random);
+            long firstAttempt = (long) (arrival.nextDouble() * windowNanos)
+                    + delays[i].createDelay(1).toNanos();
+            queue.add(new Attempt(i, 1, firstAttempt));
+        }
+
+        long[] recoveredAt = new long[clients];
+        long currentWindow = -1;
+        int acceptedInWindow = 0;
+        int attemptsInWindow = 0;
+        int peakAttempts = 0;
+        long totalAttempts = 0;
+
+        while (!queue.isEmpty()) {
+            Attempt attempt = queue.poll();
+            long windowIndex = attempt.time / windowNanos;
+            if (windowIndex != currentWindow) {
+                currentWindow = windowIndex;
+                acceptedInWindow = 0;
+                attemptsInWindow = 0;
+            }
+            attemptsInWindow++;
+            totalAttempts++;
+            peakAttempts = Math.max(peakAttempts, attemptsInWindow);
+
+            Delay delay = delays[attempt.client];
+            boolean accepted = attempt.time >= outageNanos && acceptedInWindow < acceptsPerWindow;
+            if (accepted) {
+                acceptedInWindow++;
+                recoveredAt[attempt.client] = attempt.time;
+                if (delay instanceof AdaptiveDelay) {
+                    ((AdaptiveDelay) delay).onSuccess();
+                }
+                continue;
+            }
+
+            if (delay instanceof AdaptiveDelay) {
+                ((AdaptiveDelay) delay).onFailure();
+            }
+            long next = attempt.attempt + 1;
+            // a retry always lands at least one nanosecond later, even with a zero delay
+            long retryAt = attempt.time + Math.max(1, delay.createDelay(next).toNanos());
+            queue.add(new Attempt(attempt.client, next, retryAt));
+        }
+
+        Arrays.sort(recoveredAt);
+        return new Report(Duration.ofNanos(recoveredAt[clients - 1]),
+                (long) peakAttempts * TimeUnit.SECONDS.toNanos(1) / windowNanos, totalAttempts,
+                Duration.ofNanos(percentile(recoveredAt, 0.50)), Duration.ofNanos(percentile(recoveredAt, 0.90)),
+                Duration.ofNanos(percentile(recoveredAt, 0.99)), Duration.ofNanos(percentile(recoveredAt, 0.999)));
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Usage: {@code ReconnectStormSimulator [clients] [acceptsPerSecond] [outageMillis] [seed]}
+     */
+    public static void main(String[] args) {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int acceptsPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        long outageMillis = args.length > 2 ? Long.parseLong(args[2]) : 5_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        Duration window = Duration.ofMillis(10);
+        int acceptsPerWindow = Math.max(1, acceptsPerSecond / 100);
+        ReconnectStormSimulator simulator = new ReconnectStormSimulator(clients, Duration.ofMillis(outageMillis), window,
+                acceptsPerWindow, seed);
+
+        System.out.printf(Locale.ROOT, "%-20s %12s %14s %12s %10s %10s %10s %10s%n", "strategy", "recovery_ms",
+                "peak_attempt/s", "attempts", "p50_ms", "p90_ms", "p99_ms", "p999_ms");
+        for (Map.Entry<String, Function<Random, Delay>> entry : defaultStrategies().entrySet()) {
+            Report r = simulator.run(entry.getValue());
+            System.out.printf(Locale.ROOT, "%-20s %12d %14d %12d %10d %10d %10d %10d%n", entry.getKey(),
+                    r.timeToFullRecovery().toMillis(), r.peakAttemptsPerSecond(), r.totalAttempts(), r.p50().toMillis(),
+                    r.p90().toMillis(), r.p99().toMillis(), r.p999().toMillis());
+        }
+    }
+
+    /**
+     * Outcome of one simulation run. Latency percentiles are measured from the disconnect to the accepted reconnect.
+     */
+    public record Report(Duration timeToFullRecovery, long peakAttemptsPerSecond, long totalAttempts, Duration p50,
+            Duration p90, Duration p99, Duration p999) {
+    }
+
+    private static final class Attempt implements Comparable<Attempt> {
+
+        final int client;
+        final long attempt;
+        final long time;
+
+        Attempt(int client, long attempt, long time) {
+            this.client = client;
+            this.attempt = attempt;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(Attempt o) {
+            int byTime = Long.compare(time, o.time);
+            return byTime != 0 ? byTime : Integer.compare(client, o.client);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timer wheel that fires reconnect attempts for many connections from a single thread.
+ * <p>
+ * Each pending reconnect is a node in one of {@code ticksPerWheel} doubly linked buckets, so scheduling and cancelling are
+ * O(1) regardless of how many connections are waiting. Timing precision is one tick: a reconnect fires on the first tick at
+ * or after its {@link Delay#createDelay(long) computed delay}.
+ * <p>
+ * {@link ReconnectTarget#reconnect(long)} runs on the wheel thread and must not block; hand real connection work off to the
+ * event loop of the connection.
+ */
+public final class ReconnectTimerWheel implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReconnectTimerWheel.class.getName());
+
+    private static final Duration DEFAULT_TICK_DURATION = Duration.ofMillis(10);
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_STARTED = 1;
+    private static final int STATE_SHUTDOWN = 2;
+
+    private static final AtomicIntegerFieldUpdater<ReconnectTimerWheel> STATE_UPDATER = AtomicIntegerFieldUpdater
+            .newUpdater(ReconnectTimerWheel.class, "state");
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Reconnect> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Reconnect> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+
+    private volatile int state = STATE_INIT;
+    private volatile long startTime;
+    private long tick;
+
+    public ReconnectTimerWheel() {
+        this(DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL, Thread::new);
+    }
+
+    public ReconnectTimerWheel(Duration tickDuration, int ticksPerWheel, ThreadFactory threadFactory) {
+        LettuceAssert.notNull(tickDuration, "Tick duration must not be null");
+        LettuceAssert.isTrue(tickDuration.toNanos() > 0, "Tick duration must be greater than 0");
+        LettuceAssert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= 1 << 30, "TicksPerWheel must be in (0, 2^30]");
+        LettuceAssert.notNull(threadFactory, "ThreadFactory must not be null");
+
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.wheel = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = wheel.length - 1;
+        this.tickNanos = tickDuration.toNanos();
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Schedule a reconnect for {@code connection}. The delay is taken from {@code delay} for the given {@code attempt}.
+     *
+     * @return handle to cancel the pending reconnect.
+     */
+    public Reconnect schedule(ReconnectTarget connection, Delay delay, long attempt) {
+        LettuceAssert.notNull(connection, "Connection must not be null");
+        LettuceAssert.notNull(delay, "Delay must not be null");
+        start();
+
+        long delayNanos = Math.max(0, delay.createDelay(attempt).toNanos());
+        long deadline = System.nanoTime() + delayNanos - startTime;
+        if (delayNanos > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE; // overflow guard
+        }
+
+        Reconnect reconnect = new Reconnect(connection, delay, attempt, deadline);
+        pending.add(reconnect);
+        return reconnect;
+    }
+
+    /**
+     * Signal a successful reconnect. Resets {@link Delay.StatefulDelay stateful} delays so the next outage starts with a fresh
+     * backoff.
+     */
+    public void reconnected(Delay delay) {
+        if (delay instanceof Delay.StatefulDelay) {
+            ((Delay.StatefulDelay) delay).reset();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (STATE_UPDATER.getAndSet(this, STATE_SHUTDOWN) == STATE_STARTED) {
+            worker.interrupt();
+        }
+    }
+
+    private void start() {
+        switch (state) {
+            case STATE_INIT:
+                if (STATE_UPDATER.compareAndSet(this, STATE_INIT, STATE_STARTED)) {
+                    startTime = System.nanoTime();
+                    worker.start();
+                }
+                break;
+            case STATE_STARTED:
+                break;
+            case STATE_SHUTDOWN:
+                throw new IllegalStateException("ReconnectTimerWheel is closed");
+            default:
+                throw new IllegalStateException("Unknown state: " + state);
+        }
+
+        while (startTime == 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private void run() {
+        while (state == STATE_STARTED) {
+            long deadline = waitForNextTick();
+            if (deadline < 0) {
+                break;
+            }
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        for (;;) {
+            long current = System.nanoTime() - startTime;
+            long sleepNanos = deadline - current;
+            if (sleepNanos <= 0) {
+                return current;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (state == STATE_SHUTDOWN) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferPending() {
+        // bound the work per tick so a burst of schedule() calls cannot stall expiry
+        for (int i = 0; i < 100_000; i++) {
+            Reconnect reconnect = pending.poll();
+            if (reconnect == null) {
+                return;
+            }
+            if (reconnect.state != Reconnect.ST_PENDING) {
+                continue;
+            }
+            long calculated = reconnect.deadline / tickNanos;
+            reconnect.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(reconnect);
+        }
+    }
+
+    private void removeCancelled() {
+        Reconnect reconnect;
+        while ((reconnect = cancelled.poll()) != null) {
+            if (reconnect.bucket != null) {
+                reconnect.bucket.remove(reconnect);
+            }
+        }
+    }
+
+    /**
+     * Connection that can be reconnected by the wheel.
+     */
+    @FunctionalInterface
+    public interface ReconnectTarget {
+
+        void reconnect(long attempt);
+    }
+
+    /**
+     * Handle for a scheduled reconnect.
+     */
+    public final class Reconnect {
+
+        private static final int ST_PENDING = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final ReconnectTarget target;
+        private final Delay delay;
+        private final long attempt;
+        private final long deadline;
+
+        private volatile int state = ST_PENDING;
+
+        // only accessed from the wheel thread
+        private long remainingRounds;
+        private Reconnect next;
+        private Reconnect prev;
+        private Bucket bucket;
+
+        private Reconnect(ReconnectTarget target, Delay delay, long attempt, long deadline) {
+            this.target = target;
+            this.delay = delay;
+            this.attempt = attempt;
+            this.deadline = deadline;
+        }
+
+        public Delay delay() {
+            return delay;
+        }
+
+        public long attempt() {
+            return attempt;
+        }
+
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        /**
+         * Cancel the pending reconnect. The bucket slot is released on the next tick.
+         *
+         * @return {@code true} if the reconnect had not fired yet.
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (state != ST_PENDING) {
+                    return false;
+                }
+                state = ST_CANCELLED;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        private boolean expire() {
+            synchronized (this) {
+                if (state != ST_PENDING) {
+                    return false;
+                }
+                state = ST_EXPIRED;
+            }
+            try {
+                target.reconnect(attempt);
+            } catch (Throwable t) {
+                LOGGER.log(Level.WARNING, "Reconnect attempt " + attempt + " failed", t);
+            }
+            return true;
+        }
+    }
+
+    private static final class Bucket {
+
+        private Reconnect head;
+        private Reconnect tail;
+
+        void add(Reconnect reconnect) {
+            reconnect.bucket = this;
+            if (head == null) {
+                head = tail = reconnect;
+            } else {
+                tail.next = reconnect;
+                reconnect.prev = tail;
+                tail = reconnect;
+            }
+        }
+
+        void expire(long deadline) {
+            Reconnect reconnect = head;
+            while (reconnect != null) {
+                Reconnect next = reconnect.next;
+                if (reconnect.remainingRounds <= 0 && reconnect.deadline <= deadline) {
+                    remove(reconnect);
+                    reconnect.expire();
+                } else if (reconnect.isCancelled()) {
+                    remove(reconnect);
+                } else if (reconnect.remainingRounds > 0) {
+                    reconnect.remainingRounds--;
+                }
+                reconnect = next;
+            }
+        }
+
+        void remove(Reconnect reconnect) {
+            if (reconnect.bucket != this) {
+                return;
+            }
+            Reconnect next = reconnect.next;
+            if (reconnect.prev != null) {
+                reconnect.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = reconnect.prev;
+            }
+            if (reconnect == head) {
+                head = next;
+            }
+            if (reconnect == tail) {
+                tail = reconnect.prev;
+            }
+            reconnect.prev = null;
+            reconnect.next = null;
+            reconnect.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide token bucket that caps the rate of retries across all {@link Delay} instances sharing it.
+ * <p>
+ * The bucket is kept as a single "paid up to" timestamp (GCRA), so reserving a token is one CAS and needs no lock or refill
+ * thread. When the bucket is empty a reservation returns the time until its token becomes available, which
+ * {@link Delay#budgeted(Delay, RetryBudget)} uses to stretch the computed delay.
+ */
+public final class RetryBudget {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong paidUntil;
+
+    private RetryBudget(long intervalNanos, int burst) {
+        this.intervalNanos = intervalNanos;
+        this.burstNanos = intervalNanos * burst;
+        this.paidUntil = new AtomicLong(System.nanoTime() - burstNanos);
+    }
+
+    /**
+     * Create a budget that admits {@code permits} retries per {@code period} with bursts of up to {@code burst} retries.
+     */
+    public static RetryBudget create(int permits, Duration period, int burst) {
+        LettuceAssert.isTrue(permits > 0, "Permits must be greater than 0");
+        LettuceAssert.notNull(period, "Period must not be null");
+        LettuceAssert.isTrue(period.toNanos() >= permits, "Period must be at least one nanosecond per permit");
+        LettuceAssert.isTrue(burst > 0, "Burst must be greater than 0");
+        return new RetryBudget(period.toNanos() / permits, burst);
+    }
+
+    /**
+     * Reserve one retry token.
+     *
+     * @return nanoseconds from now until the reserved token is available, {@code 0} if a token was available immediately.
+     */
+    public long reserve() {
+        long now = System.nanoTime();
+        for (;;) {
+            long current = paidUntil.get();
+            long base = Math.max(current, now - burstNanos);
+            long next = base + intervalNanos;
+            if (paidUntil.compareAndSet(current, next)) {
+                return Math.max(0, next - now);
+            }
+        }
+    }
+
+    /**
+     * Reserve one retry token without waiting.
+     *
+     * @return {@code true} if a token was available.
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        for (;;) {
+            long current = paidUntil.get();
+            long base = Math.max(current, now - burstNanos);
+            long next = base + intervalNanos;
+            if (next > now) {
+                return false;
+            }
+            if (paidUntil.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return number of tokens currently available, for metrics.
+     */
+    public long available() {
+        long credit = System.nanoTime() - paidUntil.get();
+        return credit <= 0 ? 0 : Math.min(credit, burstNanos) / intervalNanos;
+    }
+
+    /**
+     * {@link Delay} that stretches the delay of its delegate while the shared budget is exhausted.
+     */
+    static class BudgetedDelay extends Delay implements Delay.StatefulDelay {
+
+        private final Delay delegate;
+        private final RetryBudget budget;
+        private final TimeUnit targetTimeUnit;
+
+        BudgetedDelay(Delay delegate, RetryBudget budget, TimeUnit targetTimeUnit) {
+            this.delegate = delegate;
+            this.budget = budget;
+            this.targetTimeUnit = targetTimeUnit;
+        }
+
+        @Override
+        public Duration createDelay(long attempt) {
+            Duration calculated = delegate.createDelay(attempt);
+            long waitNanos = budget.reserve();
+            if (waitNanos <= calculated.toNanos()) {
+                return calculated;
+            }
+            // round up so the retry never fires before its token
+            long inTargetUnit = targetTimeUnit.convert(waitNanos + targetTimeUnit.toNanos(1) - 1, TimeUnit.NANOSECONDS);
+            return Duration.ofNanos(targetTimeUnit.toNanos(inTargetUnit));
+        }
+
+        @Override
+        public void reset() {
+            if (delegate instanceof Delay.StatefulDelay) {
+                ((Delay.StatefulDelay) delegate).reset();
+            }
+        }
+    }
+}
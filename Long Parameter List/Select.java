@@ -0,0 +1,124 @@
+/**
+ * The  {@code Select} class provides static methods for finding the <em>k</em>th smallest item of an array without sorting it, using <em>quickselect</em>. Pivots are chosen by median-of-three; once {@value #BAD_PIVOTS} of its partitions have left more than 3/4 of the range, it falls back to the <em>median-of-medians</em> pivot for good. The other partitions shrink the range geometrically, so the running time is linear on average and  &Theta;(<em>n</em>) in the worst case. <p> The array is rearranged so that a[k] holds the <em>k</em>th smallest item, no item in a[0..k-1] is larger and no item in a[k+1..n-1] is smaller. <p> For the <em>k</em> smallest items of an input too large to hold in memory, see  {@link TopK}.
+ */
+public class Select {
+  private static final int INSERTION_CUTOFF=16;
+  private static final int BAD_PIVOTS=3;
+  private static final Comparator NATURAL_ORDER=Comparator.naturalOrder();
+  private Select(){
+  }
+  /**
+ * Rearranges the array so that a[k] contains the kth smallest key, using the natural order.
+ * @param a the array
+ * @param k the rank of the key, starting at 0
+ * @return the key of rank {@code k}
+ * @throws IllegalArgumentException unless {@code 0 <= k < a.length}
+ */
+  public static Comparable select(  Comparable[] a,  int k){
+    return (Comparable)select(a,k,NATURAL_ORDER);
+  }
+  /**
+ * Rearranges the array so that a[k] contains the kth smallest key, using a comparator.
+ * @param a the array
+ * @param k the rank of the key, starting at 0
+ * @param comparator the comparator specifying the order
+ * @return the key of rank {@code k}
+ * @throws IllegalArgumentException unless {@code 0 <= k < a.length}
+ */
+  public static Object select(  Object[] a,  int k,  Comparator comparator){
+    if (k < 0 || k >= a.length) {
+      throw new IllegalArgumentException("index is not between 0 and " + a.length + ": " + k);
+    }
+    select(a,comparator,0,a.length - 1,k);
+    return a[k];
+  }
+  /**
+ * Returns the median of the array (the lower median if the length is even), rearranging it as  {@link #select} does.
+ */
+  public static Comparable median(  Comparable[] a){
+    return select(a,(a.length - 1) / 2);
+  }
+  private static void select(  Object[] a,  Comparator comparator,  int lo,  int hi,  int k){
+    int badPivots=0;
+    while (hi > lo) {
+      if (hi - lo < INSERTION_CUTOFF) {
+        insertion(a,comparator,lo,hi);
+        return;
+      }
+      int size=hi - lo + 1;
+      boolean sampled=badPivots < BAD_PIVOTS;
+      int p=sampled ? medianOf3(a,comparator,lo,lo + (hi - lo) / 2,hi) : medianOfMedians(a,comparator,lo,hi);
+      exch(a,lo,p);
+      int j=partition(a,comparator,lo,hi);
+      if (j > k)       hi=j - 1;
+ else       if (j < k)       lo=j + 1;
+ else       return;
+      if (sampled && hi - lo + 1 > size - size / 4)       badPivots++;
+    }
+  }
+  private static int partition(  Object[] a,  Comparator comparator,  int lo,  int hi){
+    int i=lo;
+    int j=hi + 1;
+    Object v=a[lo];
+    while (true) {
+      while (less(comparator,a[++i],v)) {
+        if (i == hi)         break;
+      }
+      while (less(comparator,v,a[--j])) {
+        if (j == lo)         break;
+      }
+      if (i >= j)       break;
+      exch(a,i,j);
+    }
+    exch(a,lo,j);
+    return j;
+  }
+  private static int medianOf3(  Object[] a,  Comparator comparator,  int i,  int j,  int k){
+    return (less(comparator,a[i],a[j]) ? (less(comparator,a[j],a[k]) ? j : less(comparator,a[i],a[k]) ? k : i) : (less(comparator,a[k],a[j]) ? j : less(comparator,a[k],a[i]) ? k : i));
+  }
+  /**
+ * Moves the medians of groups of five to the front of a[lo..hi] and selects their median.
+ * @return the index of the median of medians
+ */
+  private static int medianOfMedians(  Object[] a,  Comparator comparator,  int lo,  int hi){
+    int m=lo;
+    for (int i=lo; i <= hi; i+=5) {
+      int end=Math.min(i + 4,hi);
+      insertion(a,comparator,i,end);
+      exch(a,m++,i + (end - i) / 2);
+    }
+    int mid=lo + (m - 1 - lo) / 2;
+    select(a,comparator,lo,m - 1,mid);
+    return mid;
+  }
+  private static void insertion(  Object[] a,  Comparator comparator,  int lo,  int hi){
+    for (int i=lo + 1; i <= hi; i++) {
+      for (int j=i; j > lo && less(comparator,a[j],a[j - 1]); j--) {
+        exch(a,j,j - 1);
+      }
+    }
+  }
+  /**
+ * Helper sorting functions.
+ */
+  private static boolean less(  Comparator comparator,  Object v,  Object w){
+    if (SortProbe.ENABLED)     SortProbe.compare();
+    return comparator.compare(v,w) < 0;
+  }
+  private static void exch(  Object[] a,  int i,  int j){
+    if (SortProbe.ENABLED)     SortProbe.exchange();
+    Object swap=a[i];
+    a[i]=a[j];
+    a[j]=swap;
+  }
+  /**
+ * Reads in a sequence of strings from standard input and prints the median.
+ * @param args the command-line arguments
+ */
+  public static void main(  String[] args){
+    String[] a=StdIn.readAllStrings();
+    if (a.length > 0) {
+      StdOut.println(median(a));
+    }
+  }
+}
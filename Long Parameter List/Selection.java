@@ -43,12 +43,15 @@ public class Selection {
  * Helper sorting functions.
  */
   private static boolean less(  Comparable v,  Comparable w){
+    if (SortProbe.ENABLED)     SortProbe.compare();
     return v.compareTo(w) < 0;
   }
   private static boolean less(  Comparator comparator,  Object v,  Object w){
+    if (SortProbe.ENABLED)     SortProbe.compare();
     return comparator.compare(v,w) < 0;
   }
   private static void exch(  Object[] a,  int i,  int j){
+    if (SortProbe.ENABLED)     SortProbe.exchange();
     Object swap=a[i];
     a[i]=a[j];
     a[j]=swap;
@@ -76,10 +79,14 @@ public class Selection {
     }
   }
   /** 
- * Reads in a sequence of strings from standard input; selection sorts them; and prints them to standard output in ascending order.
+ * Reads in a sequence of strings from standard input; selection sorts them; and prints them to standard output in ascending order. With <code>-external [megabytes]</code>, sorts the lines of standard input with  {@link ExternalSort} instead, for inputs larger than memory.
  * @param args the command-line arguments
  */
-  public static void main(  String[] args){
+  public static void main(  String[] args) throws IOException {
+    if (args.length > 0 && "-external".equals(args[0])) {
+      ExternalSort.main(Arrays.copyOfRange(args,1,args.length));
+      return;
+    }
     String[] a=StdIn.readAllStrings();
     Selection.sort(a);
     show(a);
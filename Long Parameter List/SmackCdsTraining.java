@@ -0,0 +1,22 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Training run for Smack's class-data sharing archive, see {@code smack-cds.sh}.
+ * <p>
+ * Runs Smack's initialization, which loads the startup classes and the core providers and SASL mechanisms, so that the
+ * class list dumped from this run covers what a connection needs at startup. It then prints how long initialization took
+ * and the JVM uptime, which is what {@code smack-cds.sh bench} compares with and without the archive.
+ */
+public final class SmackCdsTraining {
+
+    private SmackCdsTraining() {
+    }
+
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        String version = SmackInitialization.SMACK_VERSION;
+        long initMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("smack " + version + " initialized in " + initMillis + " ms, jvm uptime "
+                + ManagementFactory.getRuntimeMXBean().getUptime() + " ms");
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A precompiled form of {@code smack-config.xml}: its startup classes in file order, so that startup does not need an XML
+ * parser.
+ * <p>
+ * The index is generated at build time by {@link #main(String[])} and shipped next to the configuration file as
+ * {@value #INDEX_FILE}. It records the CRC32 of the configuration file it was generated from; {@link #read(InputStream, byte[])}
+ * rejects an index whose checksum, magic or format version do not match, and the caller then falls back to parsing the XML.
+ * Disabled classes are not filtered out here, as {@code smack.disabledClasses} is a runtime setting.
+ * <p>
+ * Format, big endian: magic {@code "SMCI"}, format version ({@code short}), CRC32 of the configuration file ({@code long}),
+ * entry count ({@code int}), then per entry the class name ({@code UTF}), whether it is optional ({@code boolean}) and its
+ * comma separated dependencies ({@code UTF}, empty if none).
+ */
+final class SmackConfigIndex {
+
+    static final String INDEX_FILE = "org.jivesoftware.smack/smack-config.idx";
+
+    private static final int MAGIC = 0x534D4349;
+    private static final short FORMAT_VERSION = 1;
+
+    private SmackConfigIndex() {
+    }
+
+    /**
+     * Reads an index, checking it against the configuration file it is supposed to describe.
+     *
+     * @param index the index
+     * @param config the content of the configuration file
+     * @return the startup classes, or {@code null} if the index is not in this format or was generated from another
+     *         configuration file
+     * @throws IOException if the index cannot be read
+     */
+    static List<SmackInitializerScheduler.StartupClass> read(InputStream index, byte[] config) throws IOException {
+        DataInputStream in = new DataInputStream(index);
+        if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION || in.readLong() != checksum(config)) {
+            return null;
+        }
+        int count = in.readInt();
+        List<SmackInitializerScheduler.StartupClass> startupClasses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String className = in.readUTF();
+            boolean optional = in.readBoolean();
+            String dependsOn = in.readUTF();
+            startupClasses.add(new SmackInitializerScheduler.StartupClass(className, optional, dependsOn));
+        }
+        return startupClasses;
+    }
+
+    /**
+     * Writes the index of a configuration file.
+     *
+     * @param config the content of the configuration file
+     * @param index the stream to write the index to
+     * @throws IOException if the configuration file cannot be parsed or the index cannot be written
+     */
+    static void write(byte[] config, OutputStream index) throws IOException {
+        List<String[]> entries = parse(config);
+        DataOutputStream out = new DataOutputStream(index);
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeLong(checksum(config));
+        out.writeInt(entries.size());
+        for (String[] entry : entries) {
+            out.writeUTF(entry[0]);
+            out.writeBoolean(Boolean.parseBoolean(entry[1]));
+            out.writeUTF(entry[2]);
+        }
+        out.flush();
+    }
+
+    static long checksum(byte[] config) {
+        CRC32 crc = new CRC32();
+        crc.update(config, 0, config.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Parses the startup classes of a configuration file with the JDK's StAX parser, as the generator runs on the build's
+     * classpath rather than Smack's.
+     */
+    private static List<String[]> parse(byte[] config) throws IOException {
+        List<String[]> entries = new ArrayList<>();
+        try {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new ByteArrayInputStream(config));
+            String section = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("startupClasses".equals(name) || "optionalStartupClasses".equals(name)) {
+                        section = name;
+                    } else if ("className".equals(name) && section != null) {
+                        String dependsOn = reader.getAttributeValue(null, "dependsOn");
+                        entries.add(new String[] { reader.getElementText().trim(),
+                                String.valueOf("optionalStartupClasses".equals(section)),
+                                dependsOn == null ? "" : dependsOn });
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(section)) {
+                    section = null;
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not parse Smack configuration file", e);
+        }
+        return entries;
+    }
+
+    /**
+     * Generates the index of a configuration file, run by the build after resources are processed, e.g.
+     * {@code java SmackConfigIndex build/resources/main/org.jivesoftware.smack/smack-config.xml
+     * build/resources/main/org.jivesoftware.smack/smack-config.idx}.
+     *
+     * @param args the configuration file and the index file to write
+     * @throws IOException if the configuration file cannot be read or parsed, or the index cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: SmackConfigIndex <smack-config.xml> <smack-config.idx>");
+            System.exit(1);
+        }
+        byte[] config = Files.readAllBytes(Paths.get(args[0]));
+        Path index = Paths.get(args[1]);
+        if (index.getParent() != null) {
+            Files.createDirectories(index.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(index)) {
+            write(config, out);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -14,12 +18,19 @@ public final class SmackInitialization {
     private static final Logger LOGGER = Logger.getLogger(SmackInitialization.class.getName());
 
     static {
+        long start = SmackStartupProfile.now();
         SMACK_VERSION = resolveVersion();
+        start = SmackStartupProfile.phase("resolveVersion", start);
         configureDisabledClasses();
+        start = SmackStartupProfile.phase("configureDisabledClasses", start);
         loadConfigFile();
+        start = SmackStartupProfile.phase("loadConfigFile", start);
         registerCoreModules();
+        start = SmackStartupProfile.phase("registerCoreModules", start);
         enableDebugIfRequested();
+        SmackStartupProfile.phase("enableDebugIfRequested", start);
         SmackConfiguration.smackInitialized = true;
+        SmackStartupProfile.report(SMACK_VERSION);
     }
 
     /* ------------- API ------------- */
@@ -28,21 +39,27 @@ public final class SmackInitialization {
         processConfigFile(cfg, ex, SmackInitialization.class.getClassLoader());
     }
 
+    /**
+     * Processes a Smack configuration file. Its startup classes are loaded once the whole file has been parsed, honoring
+     * their {@code dependsOn} attributes, see {@link SmackInitializerScheduler}.
+     */
     public static void processConfigFile(InputStream cfg, Collection<Exception> ex, ClassLoader cl) throws Exception {
+        List<SmackInitializerScheduler.StartupClass> startupClasses = new ArrayList<>();
         XmlPullParser parser = PacketParserUtils.getParserFor(cfg);
         XmlPullParser.Event event;
         do {
             event = parser.getEventType();
             if (event == XmlPullParser.Event.START_ELEMENT) {
                 if ("startupClasses".equals(parser.getName())) {
-                    parseInicialization(parser, false, ex, cl);                           // ← único Long Parameter List
+                    parseInicialization(parser, false, startupClasses);                           // ← único Long Parameter List
                 } else if ("optionalStartupClasses".equals(parser.getName())) {
-                    parseInicialization(parser, true, ex, cl);
+                    parseInicialization(parser, true, startupClasses);
                 }
             }
             event = parser.next();
         } while (event != XmlPullParser.Event.END_DOCUMENT);
         CloseableUtil.maybeClose(cfg, LOGGER);
+        SmackInitializerScheduler.loadAll(startupClasses, ex, cl);
     }
 
     /* ------------- helpers ------------- */
@@ -65,12 +82,48 @@ public final class SmackInitialization {
 
     private static void loadConfigFile() {
         try (InputStream in = FileUtils.getStreamForClasspathFile(DEFAULT_CONFIG_FILE, null)) {
-            processConfigFile(in, null);
+            long start = SmackStartupProfile.now();
+            byte[] config = readFully(in);
+            List<SmackInitializerScheduler.StartupClass> startupClasses = readConfigIndex(config);
+            SmackStartupProfile.phase(startupClasses != null ? "readConfigIndex" : "readConfigFile", start);
+            if (startupClasses != null) {
+                startupClasses.removeIf(c -> SmackConfiguration.isDisabledSmackClass(c.className));
+                SmackInitializerScheduler.loadAll(startupClasses, null, SmackInitialization.class.getClassLoader());
+            } else {
+                processConfigFile(new ByteArrayInputStream(config), null);
+            }
         } catch (Exception e) {
             throw new IllegalStateException("Could not load/parse Smack configuration file", e);
         }
     }
 
+    /**
+     * Returns the startup classes from the precompiled index of the configuration file, or {@code null} if there is no
+     * index or it does not match the configuration file.
+     */
+    private static List<SmackInitializerScheduler.StartupClass> readConfigIndex(byte[] config) {
+        try (InputStream in = FileUtils.getStreamForClasspathFile(SmackConfigIndex.INDEX_FILE, null)) {
+            List<SmackInitializerScheduler.StartupClass> startupClasses = SmackConfigIndex.read(in, config);
+            if (startupClasses == null) {
+                LOGGER.log(Level.WARNING, "Ignoring stale {0}, parsing {1}",
+                        new Object[] { SmackConfigIndex.INDEX_FILE, DEFAULT_CONFIG_FILE });
+            }
+            return startupClasses;
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "No usable " + SmackConfigIndex.INDEX_FILE + ", parsing " + DEFAULT_CONFIG_FILE, e);
+            return null;
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) != -1;) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
     private static void registerCoreModules() {
         SmackConfiguration.addCompressionHandler(new Java7ZlibInputOutputStream());
         XmppCompressionManager.registerXmppCompressionFactory(ZlibXmppCompressionFactory.INSTANCE);
@@ -106,20 +159,16 @@ public final class SmackInitialization {
 
     private static void parseInicialization(XmlPullParser parser,
                                             boolean optional,
-                                            Collection<Exception> exceptions,
-                                            ClassLoader cl) throws Exception {         
+                                            List<SmackInitializerScheduler.StartupClass> startupClasses) throws Exception {
         String start = parser.getName();
         XmlPullParser.Event event;
         do {
             event = parser.next();
             if (event == XmlPullParser.Event.START_ELEMENT && "className".equals(parser.getName())) {
+                String dependsOn = parser.getAttributeValue("", "dependsOn");
                 String className = parser.nextText();
                 if (SmackConfiguration.isDisabledSmackClass(className)) continue;
-                try {
-                    loadSmackClass(className, optional, cl);
-                } catch (Exception e) {
-                    if (exceptions != null) exceptions.add(e); else throw e;
-                }
+                startupClasses.add(new SmackInitializerScheduler.StartupClass(className, optional, dependsOn));
             }
         } while (!(event == XmlPullParser.Event.END_ELEMENT && start.equals(parser.getName())));
     }
@@ -130,41 +179,11 @@ public final class SmackInitialization {
                InvocationTargetException,
                InstantiationException,
                IllegalAccessException {
-    SmackInitializer initializer = instantiateInitializer(className, classLoader);
-    if (initializer != null) {
-        logInitializationExceptions(initializer.initialize());
+        SmackInitializerScheduler.loadRequired(className, classLoader);
     }
-}
 
     public static void loadOptionalSmackClass(String className, ClassLoader classLoader) {
-        try {
-            loadRequiredSmackClass(className, classLoader);
-        } catch (ClassNotFoundException e) {
-            LOGGER.log(Level.FINE, "Optional startup class {0} not found", className);
-        } catch (ReflectiveOperationException e) {
-            // Se ocorrer qualquer erro de reflexão, registramos mas não interrompemos
-            LOGGER.log(Level.WARNING, "Error initializing optional class " + className, e);
-        }
-    }
-
-    private static SmackInitializer instantiateInitializer(String className, ClassLoader classLoader)
-            throws ClassNotFoundException,
-                NoSuchMethodException,
-                InvocationTargetException,
-                InstantiationException,
-                IllegalAccessException {
-        Class<?> clazz = Class.forName(className, true, classLoader);
-        if (!SmackInitializer.class.isAssignableFrom(clazz)) {
-            return null;  // Não implementa a interface, nada a fazer
-        }
-        // Assumimos construtor público sem argumentos
-        return (SmackInitializer) clazz.getDeclaredConstructor().newInstance();
-    }
-
-    private static void logInitializationExceptions(List<Exception> exceptions) {
-        if (exceptions != null) {
-            exceptions.forEach(e -> LOGGER.log(Level.SEVERE, "Initializer exception", e));
-        }
+        SmackInitializerScheduler.loadOptional(className, classLoader);
     }
 
 }
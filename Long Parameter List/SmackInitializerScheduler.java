@@ -0,0 +1,242 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads and initializes the startup classes of a Smack configuration file.
+ * <p>
+ * A startup class may declare the classes it depends on with a comma separated {@code dependsOn} attribute, for example
+ * {@code <className dependsOn="org.example.FooInitializer">org.example.BarInitializer</className>}. A class is loaded and
+ * initialized only once all its dependencies have been. By default everything is loaded on the calling thread, in
+ * dependency order.
+ * <p>
+ * Setting {@value #THREADS_PROPERTY} to more than {@code 1} handles classes that do not depend on each other in parallel
+ * on a pool of that many threads. This is opt-in because the configuration file is loaded from the static initializer of
+ * {@link SmackInitialization}, which waits for the pool: a startup class that reaches {@code SmackInitialization} from a
+ * pool thread, directly or e.g. through {@code ProviderManager}'s static initializer calling
+ * {@code SmackConfiguration.getVersion()}, waits for that static initializer in turn, and startup deadlocks. Only enable
+ * it for a set of startup classes known not to do so. This class itself does not touch {@code SmackInitialization}.
+ */
+final class SmackInitializerScheduler {
+
+    static final String THREADS_PROPERTY = "smack.initializerThreads";
+    private static final Logger LOGGER = Logger.getLogger(SmackInitializerScheduler.class.getName());
+
+    private SmackInitializerScheduler() {
+    }
+
+    /**
+     * A {@code className} entry of the configuration file.
+     */
+    static final class StartupClass {
+
+        final String className;
+        final boolean optional;
+        final List<String> dependsOn;
+
+        StartupClass(String className, boolean optional, String dependsOn) {
+            this.className = className;
+            this.optional = optional;
+            this.dependsOn = parseDependsOn(dependsOn);
+        }
+
+        private static List<String> parseDependsOn(String dependsOn) {
+            if (dependsOn == null || dependsOn.trim().isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<String> classNames = new ArrayList<>();
+            for (String className : dependsOn.split(",")) {
+                if (!className.trim().isEmpty()) {
+                    classNames.add(className.trim());
+                }
+            }
+            return classNames;
+        }
+    }
+
+    /**
+     * Loads and initializes the given startup classes. Dependencies naming a class that is not a startup class of the same
+     * file, e.g. because it is disabled, are ignored.
+     * <p>
+     * Failures are added to {@code exceptions} in the order of {@code startupClasses}, whatever order the classes completed
+     * in. If {@code exceptions} is {@code null}, every class is still attempted and the first failure in that order is
+     * thrown.
+     *
+     * @param startupClasses the startup classes, in configuration file order
+     * @param exceptions the collection failures are added to, or {@code null}
+     * @param classLoader the class loader to load the classes with
+     * @throws IllegalStateException if the dependencies contain a cycle
+     */
+    static void loadAll(List<StartupClass> startupClasses, Collection<Exception> exceptions, ClassLoader classLoader)
+            throws Exception {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < startupClasses.size(); i++) {
+            indexes.putIfAbsent(startupClasses.get(i).className, i);
+        }
+        int threads = Math.min(startupClasses.size(), Integer.getInteger(THREADS_PROPERTY, 1));
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads, new InitializerThreadFactory()) : null;
+
+        long start = SmackStartupProfile.now();
+        Exception[] failures = new Exception[startupClasses.size()];
+        List<CompletableFuture<Void>> futures = new ArrayList<>(Collections.nCopies(startupClasses.size(), null));
+        try {
+            for (int i = 0; i < startupClasses.size(); i++) {
+                schedule(i, startupClasses, indexes, futures, failures, new LinkedHashSet<>(), executor, classLoader);
+            }
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+        SmackStartupProfile.phase("loadStartupClasses", start);
+
+        for (Exception failure : failures) {
+            if (failure == null) {
+                continue;
+            }
+            if (exceptions == null) {
+                throw failure;
+            }
+            exceptions.add(failure);
+        }
+    }
+
+    private static CompletableFuture<Void> schedule(int index, List<StartupClass> startupClasses, Map<String, Integer> indexes,
+            List<CompletableFuture<Void>> futures, Exception[] failures, Set<String> path, ExecutorService executor,
+            ClassLoader classLoader) {
+        CompletableFuture<Void> future = futures.get(index);
+        if (future != null) {
+            return future;
+        }
+        StartupClass startupClass = startupClasses.get(index);
+        if (!path.add(startupClass.className)) {
+            throw new IllegalStateException("Cyclic startup class dependency: " + String.join(" -> ", path) + " -> "
+                    + startupClass.className);
+        }
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (String dependency : startupClass.dependsOn) {
+            Integer dependencyIndex = indexes.get(dependency);
+            if (dependencyIndex == null) {
+                LOGGER.log(Level.FINE, "Ignoring dependency of {0} on {1}, which is not a startup class",
+                        new Object[] { startupClass.className, dependency });
+                continue;
+            }
+            dependencies.add(schedule(dependencyIndex, startupClasses, indexes, futures, failures, path, executor,
+                    classLoader));
+        }
+        path.remove(startupClass.className);
+
+        // A dependent is attempted even if one of its dependencies failed, as it was when the classes were loaded one by
+        // one; the failure of the dependency is reported on its own.
+        Runnable task = () -> {
+            try {
+                load(startupClass, classLoader);
+            } catch (Exception e) {
+                failures[index] = e;
+            }
+        };
+        CompletableFuture<Void> ready = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                .handle((result, throwable) -> null);
+        future = executor != null ? ready.thenRunAsync(task, executor) : ready.thenRun(task);
+        futures.set(index, future);
+        return future;
+    }
+
+    private static void load(StartupClass startupClass, ClassLoader classLoader) throws Exception {
+        if (startupClass.optional) {
+            loadOptional(startupClass.className, classLoader);
+        } else {
+            loadRequired(startupClass.className, classLoader);
+        }
+    }
+
+    static void loadRequired(String className, ClassLoader classLoader)
+            throws ClassNotFoundException,
+                NoSuchMethodException,
+                InvocationTargetException,
+                InstantiationException,
+                IllegalAccessException {
+        long start = SmackStartupProfile.now();
+        long loaded = 0;
+        long classInitialized = 0;
+        boolean failed = true;
+        try {
+            Class<?> clazz = Class.forName(className, false, classLoader);
+            loaded = SmackStartupProfile.now();
+            // Startup classes that are not initializers are listed for their static initializer, so always run it.
+            Class.forName(className, true, classLoader);
+            classInitialized = SmackStartupProfile.now();
+            SmackInitializer initializer = instantiateInitializer(clazz);
+            if (initializer != null) {
+                logInitializationExceptions(initializer.initialize());
+            }
+            failed = false;
+        } finally {
+            SmackStartupProfile.startupClass(className, start, loaded, classInitialized, failed);
+        }
+    }
+
+    static void loadOptional(String className, ClassLoader classLoader) {
+        try {
+            loadRequired(className, classLoader);
+        } catch (ClassNotFoundException e) {
+            LOGGER.log(Level.FINE, "Optional startup class {0} not found", className);
+        } catch (ReflectiveOperationException e) {
+            // Se ocorrer qualquer erro de reflexão, registramos mas não interrompemos
+            LOGGER.log(Level.WARNING, "Error initializing optional class " + className, e);
+        }
+    }
+
+    private static SmackInitializer instantiateInitializer(Class<?> clazz)
+            throws NoSuchMethodException,
+                InvocationTargetException,
+                InstantiationException,
+                IllegalAccessException {
+        if (!SmackInitializer.class.isAssignableFrom(clazz)) {
+            return null;  // Não implementa a interface, nada a fazer
+        }
+        // Assumimos construtor público sem argumentos
+        return (SmackInitializer) clazz.getDeclaredConstructor().newInstance();
+    }
+
+    private static void logInitializationExceptions(List<Exception> exceptions) {
+        if (exceptions != null) {
+            exceptions.forEach(e -> LOGGER.log(Level.SEVERE, "Initializer exception", e));
+        }
+    }
+
+    private static final class InitializerThreadFactory implements java.util.concurrent.ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Smack Initializer #" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Timing of Smack's initialization, enabled with {@code -Dsmack.startupProfile=<file>}.
+ * <p>
+ * {@link SmackInitialization} records the duration of each of its phases, and {@link SmackInitializerScheduler} the time
+ * each startup class took to load, to run its static initializer, and to be instantiated and have
+ * {@link SmackInitializer#initialize()} called. When initialization is done the report is written to the file as JSON,
+ * with all durations in microseconds:
+ *
+ * <pre>
+ * {"smackVersion":"4.5.0","totalMicros":81234,
+ *  "phases":[{"name":"resolveVersion","micros":1032}, ...],
+ *  "startupClasses":[{"className":"...","thread":"Smack Initializer #1","loadMicros":2110,"classInitMicros":95,
+ *                     "initializeMicros":10442,"failed":false}, ...]}
+ * </pre>
+ *
+ * Phases and startup classes are listed in the order they completed; startup classes that ran in parallel overlap, so their
+ * sum can exceed the {@code loadStartupClasses} phase. A value of {@code -} logs the report instead of writing a file.
+ * <p>
+ * The flag is a constant, so when it is not set the recording calls cost nothing once compiled.
+ */
+final class SmackStartupProfile {
+
+    static final String PROPERTY = "smack.startupProfile";
+    static final boolean ENABLED = System.getProperty(PROPERTY) != null;
+
+    private static final Logger LOGGER = Logger.getLogger(SmackStartupProfile.class.getName());
+    private static final long START = System.nanoTime();
+    private static final Queue<String> PHASES = new ConcurrentLinkedQueue<>();
+    private static final Queue<String> STARTUP_CLASSES = new ConcurrentLinkedQueue<>();
+
+    private SmackStartupProfile() {
+    }
+
+    /**
+     * Returns the current time for the recording methods, or 0 if profiling is disabled.
+     */
+    static long now() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a phase that started at {@code start}.
+     *
+     * @return the current time, i.e. the start of the next phase
+     */
+    static long phase(String name, long start) {
+        if (!ENABLED) {
+            return 0;
+        }
+        long end = System.nanoTime();
+        PHASES.add("{\"name\":" + quote(name) + ",\"micros\":" + micros(end - start) + '}');
+        return end;
+    }
+
+    /**
+     * Records a startup class. A step that was not reached, because an earlier one failed, has a time of 0.
+     *
+     * @param start the time loading started
+     * @param loaded the time the class was loaded
+     * @param classInitialized the time its static initializer completed
+     */
+    static void startupClass(String className, long start, long loaded, long classInitialized, boolean failed) {
+        if (!ENABLED) {
+            return;
+        }
+        long end = System.nanoTime();
+        STARTUP_CLASSES.add("{\"className\":" + quote(className)
+                + ",\"thread\":" + quote(Thread.currentThread().getName())
+                + ",\"loadMicros\":" + (loaded == 0 ? "null" : micros(loaded - start))
+                + ",\"classInitMicros\":" + (classInitialized == 0 ? "null" : micros(classInitialized - loaded))
+                + ",\"initializeMicros\":" + (classInitialized == 0 ? "null" : micros(end - classInitialized))
+                + ",\"failed\":" + failed + '}');
+    }
+
+    /**
+     * Writes the report, once initialization is done.
+     */
+    static void report(String smackVersion) {
+        if (!ENABLED) {
+            return;
+        }
+        String json = "{\"smackVersion\":" + quote(smackVersion)
+                + ",\"totalMicros\":" + micros(System.nanoTime() - START)
+                + ",\n \"phases\":[" + String.join(",\n  ", PHASES) + ']'
+                + ",\n \"startupClasses\":[" + String.join(",\n  ", STARTUP_CLASSES) + "]}\n";
+        String file = System.getProperty(PROPERTY);
+        if ("-".equals(file) || file.isEmpty()) {
+            LOGGER.info(json);
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write Smack startup profile to " + file, e);
+        }
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static String quote(String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH suite comparing the sorts of this package with {@link Arrays#sort} and {@link Arrays#parallelSort}.
+ * <p>
+ * Every benchmark sorts a fresh copy of the same input, so the copy is part of each measurement in the same way. Run with
+ * {@code -Dalgs4.sort.probe=true} to make the sorts count compares and exchanges in {@link SortProbe}; leave it unset
+ * for timings, the probe is then compiled out. {@link Selection} is quadratic and benchmarked separately on small sizes in
+ * {@link SelectionBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SortBenchmark {
+
+    private static final Comparator<Integer> NATURAL = Comparator.naturalOrder();
+
+    @Param({ "1000", "100000", "1000000" })
+    int n;
+
+    @Param({ "random", "sorted", "reversed", "duplicates" })
+    String distribution;
+
+    private int[] ints;
+    private Integer[] boxed;
+    private String[] strings;
+
+    @Setup
+    public void setup() {
+        ints = generate(n, distribution);
+        boxed = Arrays.stream(ints).boxed().toArray(Integer[]::new);
+        strings = Arrays.stream(ints).mapToObj(i -> "https://example.com/key/" + i).toArray(String[]::new);
+    }
+
+    static int[] generate(int n, String distribution) {
+        SplittableRandom random = new SplittableRandom(42);
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            switch (distribution) {
+                case "random":
+                    a[i] = random.nextInt();
+                    break;
+                case "sorted":
+                    a[i] = i;
+                    break;
+                case "reversed":
+                    a[i] = n - i;
+                    break;
+                case "duplicates":
+                    a[i] = random.nextInt(16);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown distribution: " + distribution);
+            }
+        }
+        return a;
+    }
+
+    @Benchmark
+    public int[] adaptiveInt() {
+        int[] a = ints.clone();
+        AdaptiveSort.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] arraysSortInt() {
+        int[] a = ints.clone();
+        Arrays.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] arraysParallelSortInt() {
+        int[] a = ints.clone();
+        Arrays.parallelSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] adaptiveObjects() {
+        Integer[] a = boxed.clone();
+        AdaptiveSort.sort(a, NATURAL);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] parallelMergeObjects() {
+        Integer[] a = boxed.clone();
+        ParallelMerge.sort(a, NATURAL);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] arraysSortObjects() {
+        Integer[] a = boxed.clone();
+        Arrays.sort(a, NATURAL);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] arraysParallelSortObjects() {
+        Integer[] a = boxed.clone();
+        Arrays.parallelSort(a, NATURAL);
+        return a;
+    }
+
+    @Benchmark
+    public String[] msdStrings() {
+        String[] a = strings.clone();
+        MSD.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] quick3Strings() {
+        String[] a = strings.clone();
+        Quick3string.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] arraysSortStrings() {
+        String[] a = strings.clone();
+        Arrays.sort(a);
+        return a;
+    }
+
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    @State(Scope.Thread)
+    public static class SelectionBenchmark {
+
+        @Param({ "100", "1000", "10000" })
+        int n;
+
+        @Param({ "random", "sorted", "reversed", "duplicates" })
+        String distribution;
+
+        private Integer[] boxed;
+
+        @Setup
+        public void setup() {
+            boxed = Arrays.stream(generate(n, distribution)).boxed().toArray(Integer[]::new);
+        }
+
+        @Benchmark
+        public Integer[] selection() {
+            Integer[] a = boxed.clone();
+            Selection.sort(a, NATURAL);
+            return a;
+        }
+
+        @Benchmark
+        public Integer[] adaptive() {
+            Integer[] a = boxed.clone();
+            AdaptiveSort.sort(a, NATURAL);
+            return a;
+        }
+
+        @Benchmark
+        public Integer[] arraysSort() {
+            Integer[] a = boxed.clone();
+            Arrays.sort(a, NATURAL);
+            return a;
+        }
+    }
+}
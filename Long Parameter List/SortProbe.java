@@ -0,0 +1,48 @@
+/**
+ * The  {@code SortProbe} class counts the compares and exchanges made by the sorting algorithms in this package. Counting is enabled with <code>-Dalgs4.sort.probe=true</code>. The flag is a  {@code static final} constant, so when it is off the JIT compiler removes the probe calls from  {@code less} and  {@code exch} and the sorts run at full speed. Counters are  {@link LongAdder}s, so parallel sorts can be probed too.
+ */
+public final class SortProbe {
+  public static final boolean ENABLED=Boolean.getBoolean("algs4.sort.probe");
+  private static final LongAdder COMPARES=new LongAdder();
+  private static final LongAdder EXCHANGES=new LongAdder();
+  private SortProbe(){
+  }
+  static void compare(){
+    COMPARES.increment();
+  }
+  static void exchange(){
+    EXCHANGES.increment();
+  }
+  public static long compares(){
+    return COMPARES.sum();
+  }
+  public static long exchanges(){
+    return EXCHANGES.sum();
+  }
+  public static void reset(){
+    COMPARES.reset();
+    EXCHANGES.reset();
+  }
+  /**
+ * Sorts n random integers with each probed algorithm and prints its compares and exchanges. Run with <code>-Dalgs4.sort.probe=true</code>.
+ * @param args the command-line arguments: n
+ */
+  public static void main(  String[] args){
+    if (!ENABLED) {
+      StdOut.println("run with -Dalgs4.sort.probe=true");
+      return;
+    }
+    int n=Integer.parseInt(args[0]);
+    Integer[] a=new Integer[n];
+    for (int i=0; i < n; i++)     a[i]=StdRandom.uniform(n);
+    String[] names={"Selection","AdaptiveSort","ParallelMerge"};
+    for (int k=0; k < names.length; k++) {
+      Integer[] b=a.clone();
+      reset();
+      if (k == 0)       Selection.sort(b);
+ else       if (k == 1)       AdaptiveSort.sort(b);
+ else       ParallelMerge.sort(b);
+      StdOut.printf("%-14s %14d compares %14d exchanges%n",names[k],compares(),exchanges());
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * The  {@code TopK} class keeps the <em>k</em> smallest of a stream of keys in a bounded binary max-heap, so only <em>k</em> keys are ever held in memory. The largest retained key is at the root: a new key either is discarded after one compare or replaces it. Adding takes  &Theta;(log <em>k</em>) time in the worst case and constant time for keys that are discarded. <p> To keep the <em>k</em> largest keys instead, construct it with a reversed comparator.
+ * @param <Key> the generic type of key
+ */
+public class TopK<Key> implements Iterable<Key> {
+  private final Key[] pq;
+  private final Comparator<? super Key> comparator;
+  private int n;
+  /**
+ * Initializes an empty accumulator for the k smallest keys in natural order.
+ * @param k the number of keys to keep
+ */
+  public TopK(  int k){
+    this(k,null);
+  }
+  /**
+ * Initializes an empty accumulator for the k smallest keys, using the given comparator.
+ * @param k the number of keys to keep
+ * @param comparator the order in which to compare the keys
+ */
+  public TopK(  int k,  Comparator<? super Key> comparator){
+    if (k < 1)     throw new IllegalArgumentException("k must be positive: " + k);
+    this.pq=(Key[])new Object[k + 1];
+    this.comparator=comparator;
+  }
+  /**
+ * Offers a key to the accumulator.
+ * @param x the key
+ * @return {@code true} if the key is among the k smallest seen so far
+ */
+  public boolean add(  Key x){
+    if (x == null)     throw new IllegalArgumentException("argument to add() is null");
+    if (n < pq.length - 1) {
+      pq[++n]=x;
+      swim(n);
+      return true;
+    }
+    if (!less(x,pq[1]))     return false;
+    pq[1]=x;
+    sink(1);
+    return true;
+  }
+  /**
+ * Offers all keys of the iterable, consuming it one key at a time.
+ * @param keys the keys
+ */
+  public void addAll(  Iterable<? extends Key> keys){
+    for (    Key x : keys)     add(x);
+  }
+  /**
+ * Returns the number of keys retained, at most k.
+ */
+  public int size(){
+    return n;
+  }
+  public boolean isEmpty(){
+    return n == 0;
+  }
+  /**
+ * Returns the largest retained key: the kth smallest key seen once at least k keys were added.
+ * @throws NoSuchElementException if no key was added
+ */
+  public Key max(){
+    if (isEmpty())     throw new NoSuchElementException("TopK is empty");
+    return pq[1];
+  }
+  /**
+ * Returns the retained keys in ascending order.
+ */
+  public List<Key> sorted(){
+    Object[] sorted=new Object[n];
+    System.arraycopy(pq,1,sorted,0,n);
+    AdaptiveSort.sort(sorted,comparator != null ? comparator : Comparator.naturalOrder());
+    return (List<Key>)Arrays.asList(sorted);
+  }
+  /**
+ * Returns an iterator over the retained keys in ascending order.
+ */
+  @Override public Iterator<Key> iterator(){
+    return sorted().iterator();
+  }
+  /**
+ * Helper functions to restore the heap invariant.
+ */
+  private void swim(  int k){
+    while (k > 1 && less(pq[k / 2],pq[k])) {
+      exch(k / 2,k);
+      k=k / 2;
+    }
+  }
+  private void sink(  int k){
+    while (2 * k <= n) {
+      int j=2 * k;
+      if (j < n && less(pq[j],pq[j + 1]))       j++;
+      if (!less(pq[k],pq[j]))       break;
+      exch(k,j);
+      k=j;
+    }
+  }
+  private boolean less(  Key v,  Key w){
+    if (comparator == null) {
+      return ((Comparable<Key>)v).compareTo(w) < 0;
+    }
+ else {
+      return comparator.compare(v,w) < 0;
+    }
+  }
+  private void exch(  int i,  int j){
+    Key swap=pq[i];
+    pq[i]=pq[j];
+    pq[j]=swap;
+  }
+  /**
+ * Reads strings from standard input one at a time and prints the k smallest in ascending order, holding only k strings in memory.
+ * @param args the command-line arguments: k
+ */
+  public static void main(  String[] args){
+    int k=Integer.parseInt(args[0]);
+    TopK<String> top=new TopK<String>(k);
+    while (!StdIn.isEmpty()) {
+      top.add(StdIn.readString());
+    }
+    for (    String s : top) {
+      StdOut.println(s);
+    }
+  }
+}
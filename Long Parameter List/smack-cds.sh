@@ -0,0 +1,64 @@
+#!/bin/sh
+# Class-data sharing (AppCDS) archive for Smack's startup classes.
+#
+#   smack-cds.sh dump  <classpath>                  record the classes loaded by SmackCdsTraining and build the archive
+#   smack-cds.sh run   <classpath> <main> [args]    launch a JVM using the archive
+#   smack-cds.sh bench <classpath> [runs]           compare cold starts of SmackCdsTraining without and with the archive
+#
+# The classpath must consist of jar files only, in the same order for dump and run: CDS does not archive classes loaded
+# from directories, and the JVM ignores the archive if the classpath does not match the one it was dumped with.
+# SMACK_CDS_DIR sets where the class list and archive go (default: build/cds), JAVA the java executable.
+set -eu
+
+JAVA=${JAVA:-java}
+CDS_DIR=${SMACK_CDS_DIR:-build/cds}
+CLASS_LIST="$CDS_DIR/smack.classlist"
+ARCHIVE="$CDS_DIR/smack.jsa"
+TRAINING_MAIN=SmackCdsTraining
+
+usage() {
+    sed -n '4,6s/^# *//p' "$0" >&2
+    exit 1
+}
+
+[ $# -ge 2 ] || usage
+mode=$1
+classpath=$2
+shift 2
+
+case "$mode" in
+dump)
+    mkdir -p "$CDS_DIR"
+    "$JAVA" -Xshare:off -XX:DumpLoadedClassList="$CLASS_LIST" -cp "$classpath" "$TRAINING_MAIN"
+    "$JAVA" -Xshare:dump -XX:SharedClassListFile="$CLASS_LIST" -XX:SharedArchiveFile="$ARCHIVE" -cp "$classpath"
+    echo "wrote $ARCHIVE ($(wc -l < "$CLASS_LIST") classes listed)"
+    ;;
+run)
+    [ $# -ge 1 ] || usage
+    # -Xshare:auto falls back to normal class loading, with a warning, if the archive is missing or does not match.
+    exec "$JAVA" -Xshare:auto -XX:SharedArchiveFile="$ARCHIVE" -cp "$classpath" "$@"
+    ;;
+bench)
+    runs=${1:-10}
+    [ -f "$ARCHIVE" ] || { echo "no archive at $ARCHIVE, run '$0 dump' first" >&2; exit 1; }
+    # Wall-clock time of whole JVM launches, median of the runs; the first run of each kind warms the page cache.
+    measure() {
+        "$@" > /dev/null
+        i=0
+        while [ $i -lt "$runs" ]; do
+            t0=$(date +%s%N)
+            "$@" > /dev/null
+            t1=$(date +%s%N)
+            echo $(( (t1 - t0) / 1000000 ))
+            i=$((i + 1))
+        done | sort -n | awk '{ a[NR] = $1 } END { print a[int((NR + 1) / 2)] }'
+    }
+    off=$(measure "$JAVA" -Xshare:off -cp "$classpath" "$TRAINING_MAIN")
+    default=$(measure "$JAVA" -cp "$classpath" "$TRAINING_MAIN")
+    app=$(measure "$JAVA" -Xshare:on -XX:SharedArchiveFile="$ARCHIVE" -cp "$classpath" "$TRAINING_MAIN")
+    echo "median cold start over $runs runs: no CDS ${off} ms, JDK CDS ${default} ms, Smack AppCDS ${app} ms"
+    ;;
+*)
+    usage
+    ;;
+esac